@@ -1,6 +1,7 @@
 package com.example.shoppingwebsite.config;
 
 import com.example.shoppingwebsite.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,11 +44,14 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
+                        // Completes async responses (e.g. a queued checkout); the request was authorized when it came in
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/api/auth/**", "/api/refresh-token").permitAll()
                         .requestMatchers("/api/items/**").permitAll()
                         .requestMatchers("/error", "/favicon.ico").permitAll()
                         .requestMatchers("/api/cart/**").authenticated()
                         .requestMatchers("/api/orders/**").authenticated()
+                        .requestMatchers("/api/catalog/**").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.GET, "/api/users/profile").authenticated()
                         .requestMatchers(HttpMethod.PUT, "/api/users/profile").authenticated()
                         .requestMatchers(HttpMethod.DELETE, "/api/users/profile").authenticated()
@@ -62,6 +66,12 @@ public class SecurityConfig {
                             response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                             response.getWriter().write("{\"error\": \"" + authException.getMessage() + "\"}");
                         })
+                        .accessDeniedHandler((request, response, accessDeniedException) -> {
+                            logger.warn("Access denied to {}: {}", request.getRequestURI(), accessDeniedException.getMessage());
+                            response.setContentType("application/json;charset=UTF-8");
+                            response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+                            response.getWriter().write("{\"error\": \"" + accessDeniedException.getMessage() + "\"}");
+                        })
                 );
 
         return http.build();
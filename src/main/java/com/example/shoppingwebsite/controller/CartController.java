@@ -1,8 +1,9 @@
 package com.example.shoppingwebsite.controller;
 
+import com.example.shoppingwebsite.dto.CartDTO;
 import com.example.shoppingwebsite.dto.CartItemRequest;
+import com.example.shoppingwebsite.dto.CartOperation;
 import com.example.shoppingwebsite.exception.ItemNotFoundException;
-import com.example.shoppingwebsite.model.Cart;
 import com.example.shoppingwebsite.service.CartService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,6 +16,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
 import java.util.Collections;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/cart")
@@ -23,6 +25,8 @@ public class CartController {
 
     private static final Logger logger = LoggerFactory.getLogger(CartController.class);
 
+    private static final int MAX_OPERATIONS = 100;
+
     private final CartService cartService;
 
     @Autowired
@@ -38,8 +42,8 @@ public class CartController {
         try {
             String userEmail = authentication.getName();
             logger.info("Retrieving cart for user: {}", userEmail);
-            Cart cart = cartService.getCartForUser(userEmail);
-            if (cart == null || cart.getItems().isEmpty()) {
+            CartDTO cart = cartService.getCartForUser(userEmail);
+            if (cart.getItems().isEmpty()) {
                 logger.info("Cart is empty for user: {}", userEmail);
                 return ResponseEntity.ok(Collections.emptyList());
             }
@@ -77,7 +81,8 @@ public class CartController {
         try {
             String userEmail = authentication.getName();
             logger.info("Adding item to cart for user: {}, itemId: {}, quantity: {}", userEmail, request.getItemId(), quantity);
-            Cart updatedCart = cartService.addToCart(userEmail, request.getItemId(), quantity);
+            cartService.addToCart(userEmail, request.getItemId(), quantity);
+            CartDTO updatedCart = cartService.getCartForUser(userEmail);
             logger.info("Item added successfully to cart for user: {}", userEmail);
             return ResponseEntity.ok(updatedCart);
         } catch (UsernameNotFoundException e) {
@@ -105,7 +110,7 @@ public class CartController {
             String userEmail = authentication.getName();
             logger.info("Updating cart item for user: {}, itemId: {}, quantity: {}", userEmail, itemId, quantity);
             cartService.updateCartItem(userEmail, itemId, quantity);
-            Cart updatedCart = cartService.getCartForUser(userEmail);
+            CartDTO updatedCart = cartService.getCartForUser(userEmail);
             logger.info("Cart item updated successfully for user: {}", userEmail);
             return ResponseEntity.ok(updatedCart);
         } catch (UsernameNotFoundException e) {
@@ -120,6 +125,38 @@ public class CartController {
         }
     }
 
+    /**
+     * Applies a list of add/update/remove operations in one transaction and
+     * returns the resulting cart, so saving a cart edit is one round trip.
+     */
+    @PatchMapping
+    public ResponseEntity<?> applyCartOperations(@RequestBody List<CartOperation> operations, Authentication authentication) {
+        if (authentication == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("User not authenticated");
+        }
+        if (operations == null || operations.isEmpty() || operations.size() > MAX_OPERATIONS) {
+            return ResponseEntity.badRequest().body("Between 1 and " + MAX_OPERATIONS + " operations are required");
+        }
+        try {
+            String userEmail = authentication.getName();
+            logger.info("Applying {} cart operation(s) for user: {}", operations.size(), userEmail);
+            cartService.applyOperations(userEmail, operations);
+            CartDTO updatedCart = cartService.getCartForUser(userEmail);
+            return ResponseEntity.ok(updatedCart);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (UsernameNotFoundException e) {
+            logger.error("User not found: {}", authentication.getName());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found");
+        } catch (ItemNotFoundException e) {
+            logger.error("Cart operation failed for user {}: {}", authentication.getName(), e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error applying cart operations for user: {}", authentication.getName(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error updating cart: " + e.getMessage());
+        }
+    }
+
     @DeleteMapping("/{itemId}")
     public ResponseEntity<?> removeCartItem(@PathVariable Long itemId, Authentication authentication) {
         if (authentication == null) {
@@ -129,7 +166,7 @@ public class CartController {
             String userEmail = authentication.getName();
             logger.info("Removing item from cart for user: {}, itemId: {}", userEmail, itemId);
             cartService.removeCartItem(userEmail, itemId);
-            Cart updatedCart = cartService.getCartForUser(userEmail);
+            CartDTO updatedCart = cartService.getCartForUser(userEmail);
             logger.info("Item removed successfully from cart for user: {}", userEmail);
             return ResponseEntity.ok(updatedCart);
         } catch (UsernameNotFoundException e) {
@@ -150,7 +187,7 @@ public class CartController {
             String userEmail = authentication.getName();
             logger.info("Clearing cart for user: {}", userEmail);
             cartService.clearCart(userEmail);
-            Cart emptyCart = cartService.getCartForUser(userEmail);
+            CartDTO emptyCart = cartService.getCartForUser(userEmail);
             logger.info("Cart cleared successfully for user: {}", userEmail);
             return ResponseEntity.ok(emptyCart);
         } catch (UsernameNotFoundException e) {
@@ -0,0 +1,43 @@
+package com.example.shoppingwebsite.controller;
+
+import com.example.shoppingwebsite.dto.CatalogImportReport;
+import com.example.shoppingwebsite.service.CatalogImportService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/catalog")
+@CrossOrigin(origins = "http://localhost:3000", allowCredentials = "true")
+public class CatalogController {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogController.class);
+
+    @Autowired
+    private CatalogImportService catalogImportService;
+
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<?> importItems(@RequestHeader("Content-Type") String contentType,
+                                         InputStream body,
+                                         Authentication authentication) {
+        CatalogImportService.Format format = contentType.startsWith("text/csv")
+                ? CatalogImportService.Format.CSV
+                : CatalogImportService.Format.NDJSON;
+        logger.info("Catalog import ({}) started by {}", format, authentication.getName());
+        try {
+            CatalogImportReport report = catalogImportService.importItems(body, format);
+            return ResponseEntity.ok(report);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            logger.error("Catalog import failed", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Catalog import failed: " + e.getMessage());
+        }
+    }
+}
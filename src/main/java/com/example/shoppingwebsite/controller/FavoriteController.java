@@ -1,6 +1,6 @@
 package com.example.shoppingwebsite.controller;
 
-import com.example.shoppingwebsite.model.Item;
+import com.example.shoppingwebsite.dto.FavoriteItemDTO;
 import com.example.shoppingwebsite.service.FavoriteService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -18,9 +18,9 @@ public class FavoriteController {
     private FavoriteService favoriteService;
 
     @GetMapping
-    public ResponseEntity<List<Item>> getFavoriteItems(Authentication authentication) {
+    public ResponseEntity<List<FavoriteItemDTO>> getFavoriteItems(Authentication authentication) {
         String userEmail = authentication.getName();
-        List<Item> favoriteItems = favoriteService.getFavoriteItems(userEmail);
+        List<FavoriteItemDTO> favoriteItems = favoriteService.getFavoriteItems(userEmail);
         return ResponseEntity.ok(favoriteItems);
     }
 
@@ -1,16 +1,40 @@
 package com.example.shoppingwebsite.controller;
 
+import com.example.shoppingwebsite.dto.ItemPage;
+import com.example.shoppingwebsite.dto.ItemSuggestion;
+import com.example.shoppingwebsite.dto.ItemWithAvailability;
 import com.example.shoppingwebsite.model.Item;
 import com.example.shoppingwebsite.model.ItemAvailability;
+import com.example.shoppingwebsite.service.CatalogResponseCache;
+import com.example.shoppingwebsite.service.CatalogSnapshot;
+import com.example.shoppingwebsite.service.ItemChangeFeed;
 import com.example.shoppingwebsite.service.ItemService;
+import com.example.shoppingwebsite.service.StockLedger;
+import com.example.shoppingwebsite.service.StockLevels;
+import com.example.shoppingwebsite.service.StockReservationService;
 import com.example.shoppingwebsite.service.StockService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/items")
@@ -18,22 +42,105 @@ public class ItemController {
 
     private static final Logger logger = LoggerFactory.getLogger(ItemController.class);
 
+    private static final int MAX_BATCH_SIZE = 200;
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final int EXPORT_FLUSH_EVERY = 500;
+
     @Autowired
     private ItemService itemService;
 
     @Autowired
     private StockService stockService;
 
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Autowired
+    private ItemChangeFeed itemChangeFeed;
+
+    @Autowired
+    private CatalogResponseCache responseCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${catalog.http.max-age:30s}")
+    private Duration catalogMaxAge;
+
     @GetMapping
-    public ResponseEntity<List<Item>> getAllItems() {
-        return ResponseEntity.ok(itemService.getAllItems());
+    public ResponseEntity<byte[]> getAllItems(WebRequest request) {
+        CatalogSnapshot snapshot = itemService.getCatalogSnapshot();
+        return cachedJson(request, "items", "catalog-", snapshot.getVersion(), CacheControl.maxAge(catalogMaxAge),
+                snapshot::getItems);
+    }
+
+    @GetMapping(params = "ids")
+    public ResponseEntity<?> getItemsByIds(@RequestParam List<Long> ids,
+                                           @RequestParam(defaultValue = "false") boolean availability,
+                                           WebRequest request) {
+        if (ids.isEmpty() || ids.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().body("Between 1 and " + MAX_BATCH_SIZE + " ids are required");
+        }
+        long version = itemService.getCatalogVersion();
+        List<Item> items = itemService.getItemsByIds(ids);
+        String key = "batch:" + ids + (availability ? ":availability" : "");
+        if (!availability) {
+            return cachedJson(request, key, "catalog-", version, CacheControl.maxAge(catalogMaxAge), () -> items);
+        }
+        return cachedJson(request, key, "availability-", availabilityVersion(version), CacheControl.noCache(),
+                () -> items.stream()
+                        .map(item -> new ItemWithAvailability(item, availabilityOf(item.getId())))
+                        .toList());
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportItems() {
+        StreamingResponseBody body = out -> {
+            long[] written = {0};
+            long count = itemService.forEachItem(item -> {
+                try {
+                    out.write(objectMapper.writeValueAsBytes(item));
+                    out.write('\n');
+                    // Flush the first line at once and then in batches, so the
+                    // consumer starts reading before the whole catalog is walked.
+                    if (++written[0] % EXPORT_FLUSH_EVERY == 1) {
+                        out.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.flush();
+            logger.info("Exported {} items as NDJSON", count);
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<?> getItemPage(@RequestParam(required = false) String cursor,
+                                         @RequestParam(defaultValue = "20") int size,
+                                         @RequestParam(defaultValue = "id") String sort) {
+        try {
+            ItemPage page = itemService.getItemPage(cursor, size, sort);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Item> getItemById(@PathVariable Long id) {
-        return itemService.getItemById(id)
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<byte[]> getItemById(@PathVariable Long id, WebRequest request) {
+        Optional<Item> item = itemService.getItemById(id);
+        if (item.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        // Keyed on the item's own version, so other items' changes keep its ETag valid
+        long version = item.get().getVersion() == null ? 0 : item.get().getVersion();
+        return cachedJson(request, "item:" + id, "item-" + id + "-", version, CacheControl.maxAge(catalogMaxAge),
+                item::get);
     }
 
     @GetMapping("/search")
@@ -45,6 +152,12 @@ public class ItemController {
         return ResponseEntity.ok(items);
     }
 
+    @GetMapping("/suggest")
+    public ResponseEntity<List<ItemSuggestion>> suggestItems(@RequestParam String prefix,
+                                                             @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(itemService.suggestItems(prefix, limit));
+    }
+
     @GetMapping("/{id}/stock")
     public ResponseEntity<Integer> getStockQuantity(@PathVariable Long id) {
         int quantity = stockService.getStockQuantity(id);
@@ -67,18 +180,81 @@ public class ItemController {
         return ResponseEntity.ok().build();
     }
 
+    /**
+     * Server-sent events with the latest price and stock of the given items,
+     * sent as {@code changes} events whenever they move.
+     */
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamItemChanges(@RequestParam List<Long> ids) {
+        if (ids.isEmpty() || ids.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(itemChangeFeed.subscribe(ids));
+    }
+
+    /**
+     * Availability for a whole product grid in one call, answered from the
+     * live stock map. Unknown ids are left out of the result.
+     */
+    @PostMapping("/availability")
+    public ResponseEntity<?> checkItemsAvailability(@RequestBody List<Long> ids) {
+        if (ids == null || ids.isEmpty() || ids.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().body("Between 1 and " + MAX_BATCH_SIZE + " ids are required");
+        }
+        Map<Long, ItemAvailability> availability = new LinkedHashMap<>();
+        for (Long itemId : ids) {
+            if (itemId != null && itemService.getStockLevel(itemId) != StockLevels.UNKNOWN) {
+                availability.put(itemId, availabilityOf(itemId));
+            }
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(availability);
+    }
+
     @GetMapping("/{itemId}/availability")
-    public ResponseEntity<?> checkItemAvailability(@PathVariable Long itemId) {
-        logger.info("Checking availability for itemId: {}", itemId);
-        try {
-            int quantity = stockService.getStockQuantity(itemId);
-            boolean inStock = quantity > 0;
-            ItemAvailability availability = new ItemAvailability(inStock, quantity);
-            logger.info("Availability for itemId {}: inStock={}, quantity={}", itemId, inStock, quantity);
-            return ResponseEntity.ok(availability);
-        } catch (Exception e) {
-            logger.error("Error checking item availability for itemId {}: {}", itemId, e.getMessage(), e);
+    public ResponseEntity<?> checkItemAvailability(@PathVariable Long itemId, WebRequest request) {
+        long version = itemService.getCatalogVersion();
+        if (itemService.getStockLevel(itemId) == StockLevels.UNKNOWN) {
+            logger.error("Error checking item availability for itemId {}: Item not found", itemId);
             return ResponseEntity.badRequest().body("Error checking item availability");
         }
+        return cachedJson(request, "availability:" + itemId, "availability-", availabilityVersion(version),
+                CacheControl.noCache(), () -> availabilityOf(itemId));
+    }
+
+    private ItemAvailability availabilityOf(Long itemId) {
+        int quantity = stockReservationService.getAvailableQuantity(itemId);
+        return new ItemAvailability(quantity > 0, quantity);
+    }
+
+    // Availability also moves when reservations change, and in ledger mode with
+    // every decrement long before it is flushed; all three counters only grow.
+    private long availabilityVersion(long catalogVersion) {
+        return catalogVersion + stockReservationService.getVersion() + stockLedger.getVersion();
+    }
+
+    /**
+     * Answers a public catalog GET from the pre-serialized response cache. The
+     * ETag is the given version plus the content encoding, since the gzip and
+     * identity bodies differ byte for byte; a matching If-None-Match gets a 304.
+     */
+    private ResponseEntity<byte[]> cachedJson(WebRequest request, String key, String etagPrefix, long version,
+                                              CacheControl cacheControl, Supplier<Object> body) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        String etag = "\"" + etagPrefix + version + (gzip ? "-gzip" : "") + "\"";
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        CatalogResponseCache.Body cached = responseCache.get(key, version, body);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(cacheControl.cachePublic())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(cached.getGzip());
+        }
+        return response.body(cached.getJson());
     }
 }
\ No newline at end of file
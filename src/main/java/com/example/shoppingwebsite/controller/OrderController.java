@@ -2,16 +2,25 @@ package com.example.shoppingwebsite.controller;
 
 import com.example.shoppingwebsite.dto.OrderDTO;
 import com.example.shoppingwebsite.dto.OrderCreationResponse;
+import com.example.shoppingwebsite.dto.OrderPage;
 import com.example.shoppingwebsite.dto.UpdateOrderItemRequest;
+import com.example.shoppingwebsite.exception.CheckoutUnavailableException;
+import com.example.shoppingwebsite.exception.InsufficientStockException;
+import com.example.shoppingwebsite.service.CheckoutPipeline;
 import com.example.shoppingwebsite.service.OrderService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/orders")
@@ -23,6 +32,9 @@ public class OrderController {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private CheckoutPipeline checkoutPipeline;
+
     @GetMapping
     public ResponseEntity<List<OrderDTO>> getUserOrders(Authentication authentication) {
         String userEmail = authentication.getName();
@@ -30,6 +42,18 @@ public class OrderController {
         return ResponseEntity.ok(orders);
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<?> getUserOrderPage(@RequestParam(required = false) String cursor,
+                                              @RequestParam(defaultValue = "20") int size,
+                                              Authentication authentication) {
+        try {
+            OrderPage page = orderService.getUserOrderPage(authentication.getName(), cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping("/{orderId}")
     public ResponseEntity<OrderDTO> getOrder(@PathVariable Long orderId, Authentication authentication) {
         String userEmail = authentication.getName();
@@ -47,7 +71,7 @@ public class OrderController {
     }
 
     @PostMapping("/items")
-    public ResponseEntity<OrderDTO> addItemToOrder(
+    public ResponseEntity<?> addItemToOrder(
             Authentication authentication,
             @RequestParam Long itemId,
             @RequestParam int quantity) {
@@ -55,6 +79,8 @@ public class OrderController {
         try {
             OrderDTO updatedOrder = orderService.addItemToOrder(userEmail, itemId, quantity);
             return ResponseEntity.ok(updatedOrder);
+        } catch (InsufficientStockException e) {
+            return insufficientStock(e);
         } catch (Exception e) {
             logger.error("Error adding item to order", e);
             return ResponseEntity.badRequest().body(null);
@@ -79,7 +105,7 @@ public class OrderController {
     }
 
     @PutMapping("/{orderId}/items/{orderItemId}")
-    public ResponseEntity<OrderDTO> updateItemQuantity(
+    public ResponseEntity<?> updateItemQuantity(
             @PathVariable Long orderId,
             @PathVariable Long orderItemId,
             @RequestBody UpdateOrderItemRequest request,
@@ -90,21 +116,48 @@ public class OrderController {
         try {
             OrderDTO updatedOrder = orderService.updateItemQuantity(orderId, orderItemId, request.getQuantity(), userEmail);
             return ResponseEntity.ok(updatedOrder);
+        } catch (InsufficientStockException e) {
+            return insufficientStock(e);
         } catch (Exception e) {
             logger.error("Error updating item quantity", e);
             return ResponseEntity.badRequest().body(null);
         }
     }
 
+    /**
+     * Closes the order, either right away or, with the checkout pipeline
+     * enabled, in the pipeline's next batch; the response is sent once the
+     * order's transaction has committed.
+     */
     @PostMapping("/{orderId}/close")
-    public ResponseEntity<?> closeOrder(@PathVariable Long orderId, Authentication authentication) {
-        try {
-            String userEmail = authentication.getName();
-            OrderDTO closedOrder = orderService.closeOrder(orderId, userEmail);
-            return ResponseEntity.ok(closedOrder);
-        } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().body(e.getMessage());
+    public CompletableFuture<ResponseEntity<?>> closeOrder(@PathVariable Long orderId, Authentication authentication) {
+        String userEmail = authentication.getName();
+        CompletableFuture<OrderDTO> closedOrder;
+        if (checkoutPipeline.isEnabled()) {
+            closedOrder = checkoutPipeline.submit(orderId, userEmail);
+        } else {
+            try {
+                closedOrder = CompletableFuture.completedFuture(orderService.closeOrder(orderId, userEmail));
+            } catch (RuntimeException e) {
+                closedOrder = CompletableFuture.failedFuture(e);
+            }
         }
+        return closedOrder.handle((order, error) -> error == null
+                ? ResponseEntity.ok(order)
+                : closeOrderFailure(orderId, error instanceof CompletionException ? error.getCause() : error));
+    }
+
+    private ResponseEntity<?> closeOrderFailure(Long orderId, Throwable error) {
+        if (error instanceof InsufficientStockException e) {
+            logger.warn("Order {} could not be closed: {}", orderId, e.getMessage());
+            return insufficientStock(e);
+        }
+        if (error instanceof CheckoutUnavailableException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(error.getMessage());
+        }
+        return ResponseEntity.badRequest().body(error.getMessage());
     }
 
     @PostMapping("/create-from-cart")
@@ -115,6 +168,8 @@ public class OrderController {
             OrderDTO order = orderService.createOrderFromCart(userEmail);
             logger.info("Order created successfully: {}", order.getId());
             return ResponseEntity.ok().body(new OrderCreationResponse(order.getId()));
+        } catch (InsufficientStockException e) {
+            return insufficientStock(e);
         } catch (Exception e) {
             logger.error("Error creating order from cart", e);
             return ResponseEntity.badRequest().body(e.getMessage());
@@ -122,19 +177,31 @@ public class OrderController {
     }
 
     @GetMapping("/history")
-    public ResponseEntity<List<OrderDTO>> getUserOrderHistory(Authentication authentication) {
+    public ResponseEntity<byte[]> getUserOrderHistory(Authentication authentication) {
         String userEmail = authentication.getName();
         try {
-            List<OrderDTO> orderHistory = orderService.getUserOrderHistory(userEmail);
-            return ResponseEntity.ok(orderHistory);
+            byte[] orderHistory = orderService.getUserOrderHistoryJson(userEmail);
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(orderHistory);
         } catch (Exception e) {
             logger.error("Error fetching user order history", e);
             return ResponseEntity.badRequest().body(null);
         }
     }
 
+    @GetMapping("/history/page")
+    public ResponseEntity<?> getUserOrderHistoryPage(@RequestParam(required = false) String cursor,
+                                                     @RequestParam(defaultValue = "20") int size,
+                                                     Authentication authentication) {
+        try {
+            OrderPage page = orderService.getUserOrderHistoryPage(authentication.getName(), cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @PostMapping("/{orderId}/items")
-    public ResponseEntity<OrderDTO> addItemToExistingOrder(
+    public ResponseEntity<?> addItemToExistingOrder(
             @PathVariable Long orderId,
             @RequestParam Long itemId,
             @RequestParam int quantity,
@@ -145,10 +212,16 @@ public class OrderController {
         try {
             OrderDTO updatedOrder = orderService.addItemToExistingOrder(orderId, itemId, quantity, userEmail);
             return ResponseEntity.ok(updatedOrder);
+        } catch (InsufficientStockException e) {
+            return insufficientStock(e);
         } catch (Exception e) {
             logger.error("Error adding item to existing order", e);
             return ResponseEntity.badRequest().body(null);
         }
     }
 
+    private ResponseEntity<?> insufficientStock(InsufficientStockException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getShortages());
+    }
+
 }
\ No newline at end of file
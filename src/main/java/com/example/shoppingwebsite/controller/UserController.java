@@ -1,5 +1,6 @@
 package com.example.shoppingwebsite.controller;
 
+import com.example.shoppingwebsite.dto.UserProfileDTO;
 import com.example.shoppingwebsite.model.User;
 import com.example.shoppingwebsite.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,17 +18,16 @@ public class UserController {
     private UserService userService;
 
     @GetMapping("/profile")
-    public ResponseEntity<User> getUserProfile(Authentication authentication) {
+    public ResponseEntity<UserProfileDTO> getUserProfile(Authentication authentication) {
         String email = authentication.getName();
-        User user = userService.getUserProfile(email);
-        return ResponseEntity.ok(user);
+        return ResponseEntity.ok(userService.getProfileDTO(email));
     }
 
     @PutMapping("/profile")
-    public ResponseEntity<User> updateUserProfile(Authentication authentication, @RequestBody User updatedUser) {
+    public ResponseEntity<UserProfileDTO> updateUserProfile(Authentication authentication, @RequestBody User updatedUser) {
         String email = authentication.getName();
-        User user = userService.updateUserProfile(email, updatedUser);
-        return ResponseEntity.ok(user);
+        userService.updateUserProfile(email, updatedUser);
+        return ResponseEntity.ok(userService.getProfileDTO(email));
     }
 
     @DeleteMapping("/profile")
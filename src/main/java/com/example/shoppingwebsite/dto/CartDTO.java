@@ -0,0 +1,53 @@
+package com.example.shoppingwebsite.dto;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CartDTO {
+    private Long id;
+    private List<CartItemDTO> items = new ArrayList<>();
+    private BigDecimal totalPrice = BigDecimal.ZERO;
+    private int itemCount;
+
+    public CartDTO(Long id, List<CartItemDTO> items, BigDecimal totalPrice, int itemCount) {
+        this.id = id;
+        this.items = items;
+        this.totalPrice = totalPrice;
+        this.itemCount = itemCount;
+    }
+
+    public CartDTO() {}
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public List<CartItemDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<CartItemDTO> items) {
+        this.items = items;
+    }
+
+    public BigDecimal getTotalPrice() {
+        return totalPrice;
+    }
+
+    public void setTotalPrice(BigDecimal totalPrice) {
+        this.totalPrice = totalPrice;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public void setItemCount(int itemCount) {
+        this.itemCount = itemCount;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.shoppingwebsite.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+
+import java.util.Locale;
+
+public class CartOperation {
+
+    public enum Type {
+        ADD, UPDATE, REMOVE;
+
+        @JsonCreator
+        public static Type fromJson(String value) {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private Type op;
+    private Long itemId;
+    private Integer quantity;
+
+    public Type getOp() {
+        return op;
+    }
+
+    public void setOp(Type op) {
+        this.op = op;
+    }
+
+    public Long getItemId() {
+        return itemId;
+    }
+
+    public void setItemId(Long itemId) {
+        this.itemId = itemId;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    @Override
+    public String toString() {
+        return "CartOperation{" +
+                "op=" + op +
+                ", itemId=" + itemId +
+                ", quantity=" + quantity +
+                '}';
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.shoppingwebsite.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class CatalogImportReport {
+
+    public static class RejectedRow {
+        private long line;
+        private String reason;
+
+        public RejectedRow(long line, String reason) {
+            this.line = line;
+            this.reason = reason;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+    }
+
+    private long rowsRead;
+    private long rowsInserted;
+    private long rowsUpdated;
+    private long rowsRejected;
+    private long chunksFailed;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+    private List<RejectedRow> rejected = new ArrayList<>();
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public void setRowsRead(long rowsRead) {
+        this.rowsRead = rowsRead;
+    }
+
+    public long getRowsInserted() {
+        return rowsInserted;
+    }
+
+    public void setRowsInserted(long rowsInserted) {
+        this.rowsInserted = rowsInserted;
+    }
+
+    public long getRowsUpdated() {
+        return rowsUpdated;
+    }
+
+    public void setRowsUpdated(long rowsUpdated) {
+        this.rowsUpdated = rowsUpdated;
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    public void setRowsRejected(long rowsRejected) {
+        this.rowsRejected = rowsRejected;
+    }
+
+    public long getChunksFailed() {
+        return chunksFailed;
+    }
+
+    public void setChunksFailed(long chunksFailed) {
+        this.chunksFailed = chunksFailed;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public double getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public void setRowsPerSecond(double rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    public List<RejectedRow> getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(List<RejectedRow> rejected) {
+        this.rejected = rejected;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.shoppingwebsite.dto;
+
+import com.example.shoppingwebsite.model.Item;
+
+import java.math.BigDecimal;
+
+/**
+ * Immutable view of an item as served from the catalog snapshot, with the
+ * same JSON shape as {@link Item}.
+ */
+public final class CatalogItem {
+    private final Long id;
+    private final String name;
+    private final String description;
+    private final String imageUrl;
+    private final BigDecimal price;
+    private final int stockQuantity;
+    private final Long version;
+
+    public CatalogItem(Item item) {
+        this.id = item.getId();
+        this.name = item.getName();
+        this.description = item.getDescription();
+        this.imageUrl = item.getImageUrl();
+        this.price = item.getPrice();
+        this.stockQuantity = item.getStockQuantity();
+        this.version = item.getVersion();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public int getStockQuantity() {
+        return stockQuantity;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+}
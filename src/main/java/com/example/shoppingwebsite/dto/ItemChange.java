@@ -0,0 +1,51 @@
+package com.example.shoppingwebsite.dto;
+
+import java.math.BigDecimal;
+
+public class ItemChange {
+    private Long itemId;
+    private BigDecimal price;
+    private int stockQuantity;
+    private boolean removed;
+
+    public ItemChange(Long itemId, BigDecimal price, int stockQuantity, boolean removed) {
+        this.itemId = itemId;
+        this.price = price;
+        this.stockQuantity = stockQuantity;
+        this.removed = removed;
+    }
+
+    public ItemChange() {}
+
+    public Long getItemId() {
+        return itemId;
+    }
+
+    public void setItemId(Long itemId) {
+        this.itemId = itemId;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+
+    public int getStockQuantity() {
+        return stockQuantity;
+    }
+
+    public void setStockQuantity(int stockQuantity) {
+        this.stockQuantity = stockQuantity;
+    }
+
+    public boolean isRemoved() {
+        return removed;
+    }
+
+    public void setRemoved(boolean removed) {
+        this.removed = removed;
+    }
+}
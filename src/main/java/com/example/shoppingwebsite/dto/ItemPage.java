@@ -0,0 +1,31 @@
+package com.example.shoppingwebsite.dto;
+
+import java.util.List;
+
+public class ItemPage {
+    private List<ItemSummary> items;
+    private String nextCursor;
+
+    public ItemPage(List<ItemSummary> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public ItemPage() {}
+
+    public List<ItemSummary> getItems() {
+        return items;
+    }
+
+    public void setItems(List<ItemSummary> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
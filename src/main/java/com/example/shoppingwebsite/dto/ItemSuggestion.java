@@ -0,0 +1,29 @@
+package com.example.shoppingwebsite.dto;
+
+public class ItemSuggestion {
+    private Long id;
+    private String name;
+
+    public ItemSuggestion(Long id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    public ItemSuggestion() {}
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.shoppingwebsite.dto;
+
+import java.math.BigDecimal;
+
+public class ItemSummary {
+    private Long id;
+    private String name;
+    private String imageUrl;
+    private BigDecimal price;
+    private int stockQuantity;
+
+    public ItemSummary(Long id, String name, String imageUrl, BigDecimal price, int stockQuantity) {
+        this.id = id;
+        this.name = name;
+        this.imageUrl = imageUrl;
+        this.price = price;
+        this.stockQuantity = stockQuantity;
+    }
+
+    public ItemSummary() {}
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public void setImageUrl(String imageUrl) {
+        this.imageUrl = imageUrl;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+
+    public int getStockQuantity() {
+        return stockQuantity;
+    }
+
+    public void setStockQuantity(int stockQuantity) {
+        this.stockQuantity = stockQuantity;
+    }
+}
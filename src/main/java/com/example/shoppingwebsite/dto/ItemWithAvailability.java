@@ -0,0 +1,32 @@
+package com.example.shoppingwebsite.dto;
+
+import com.example.shoppingwebsite.model.Item;
+import com.example.shoppingwebsite.model.ItemAvailability;
+
+public class ItemWithAvailability {
+    private Item item;
+    private ItemAvailability availability;
+
+    public ItemWithAvailability(Item item, ItemAvailability availability) {
+        this.item = item;
+        this.availability = availability;
+    }
+
+    public ItemWithAvailability() {}
+
+    public Item getItem() {
+        return item;
+    }
+
+    public void setItem(Item item) {
+        this.item = item;
+    }
+
+    public ItemAvailability getAvailability() {
+        return availability;
+    }
+
+    public void setAvailability(ItemAvailability availability) {
+        this.availability = availability;
+    }
+}
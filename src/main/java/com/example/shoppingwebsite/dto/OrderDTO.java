@@ -12,6 +12,7 @@ public class OrderDTO {
     private String shippingAddress;
     private BigDecimal totalPrice;
     private String status;
+    private Long version;
 
     public OrderDTO(Long id, List<OrderItemDTO> orderItems, Long userId, LocalDateTime orderDate, String shippingAddress, BigDecimal totalPrice, String status) {
         this.id = id;
@@ -81,4 +82,12 @@ public class OrderDTO {
     public void setStatus(String status) {
         this.status = status;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
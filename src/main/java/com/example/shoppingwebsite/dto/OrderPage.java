@@ -0,0 +1,31 @@
+package com.example.shoppingwebsite.dto;
+
+import java.util.List;
+
+public class OrderPage {
+    private List<OrderDTO> orders;
+    private String nextCursor;
+
+    public OrderPage(List<OrderDTO> orders, String nextCursor) {
+        this.orders = orders;
+        this.nextCursor = nextCursor;
+    }
+
+    public OrderPage() {}
+
+    public List<OrderDTO> getOrders() {
+        return orders;
+    }
+
+    public void setOrders(List<OrderDTO> orders) {
+        this.orders = orders;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
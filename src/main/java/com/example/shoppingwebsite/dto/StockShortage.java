@@ -0,0 +1,49 @@
+package com.example.shoppingwebsite.dto;
+
+public class StockShortage {
+    private Long itemId;
+    private String itemName;
+    private int requested;
+    private int available;
+
+    public StockShortage(Long itemId, String itemName, int requested, int available) {
+        this.itemId = itemId;
+        this.itemName = itemName;
+        this.requested = requested;
+        this.available = available;
+    }
+
+    public StockShortage() {}
+
+    public Long getItemId() {
+        return itemId;
+    }
+
+    public void setItemId(Long itemId) {
+        this.itemId = itemId;
+    }
+
+    public String getItemName() {
+        return itemName;
+    }
+
+    public void setItemName(String itemName) {
+        this.itemName = itemName;
+    }
+
+    public int getRequested() {
+        return requested;
+    }
+
+    public void setRequested(int requested) {
+        this.requested = requested;
+    }
+
+    public int getAvailable() {
+        return available;
+    }
+
+    public void setAvailable(int available) {
+        this.available = available;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.shoppingwebsite.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class UserProfileDTO {
+    private Long id;
+    private String firstName;
+    private String lastName;
+    private String email;
+    private String phone;
+    private String country;
+    private String city;
+    private List<FavoriteItemDTO> favoriteItems = new ArrayList<>();
+
+    public UserProfileDTO(Long id, String firstName, String lastName, String email, String phone, String country, String city, List<FavoriteItemDTO> favoriteItems) {
+        this.id = id;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.email = email;
+        this.phone = phone;
+        this.country = country;
+        this.city = city;
+        this.favoriteItems = favoriteItems;
+    }
+
+    public UserProfileDTO() {}
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public void setFirstName(String firstName) {
+        this.firstName = firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public void setLastName(String lastName) {
+        this.lastName = lastName;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    public void setPhone(String phone) {
+        this.phone = phone;
+    }
+
+    public String getCountry() {
+        return country;
+    }
+
+    public void setCountry(String country) {
+        this.country = country;
+    }
+
+    public String getCity() {
+        return city;
+    }
+
+    public void setCity(String city) {
+        this.city = city;
+    }
+
+    public List<FavoriteItemDTO> getFavoriteItems() {
+        return favoriteItems;
+    }
+
+    public void setFavoriteItems(List<FavoriteItemDTO> favoriteItems) {
+        this.favoriteItems = favoriteItems;
+    }
+}
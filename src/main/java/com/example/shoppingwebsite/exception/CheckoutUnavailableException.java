@@ -0,0 +1,12 @@
+package com.example.shoppingwebsite.exception;
+
+/**
+ * The checkout pipeline cannot take the request right now (queue full or
+ * shutting down); the client should retry shortly.
+ */
+public class CheckoutUnavailableException extends RuntimeException {
+
+    public CheckoutUnavailableException(String message) {
+        super(message);
+    }
+}
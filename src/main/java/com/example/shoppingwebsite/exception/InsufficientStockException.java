@@ -0,0 +1,21 @@
+package com.example.shoppingwebsite.exception;
+
+import com.example.shoppingwebsite.dto.StockShortage;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class InsufficientStockException extends RuntimeException {
+    private final List<StockShortage> shortages;
+
+    public InsufficientStockException(List<StockShortage> shortages) {
+        super("Not enough stock for items: " + shortages.stream()
+                .map(s -> s.getItemName() + " (requested " + s.getRequested() + ", available " + s.getAvailable() + ")")
+                .collect(Collectors.joining(", ")));
+        this.shortages = shortages;
+    }
+
+    public List<StockShortage> getShortages() {
+        return shortages;
+    }
+}
@@ -1,11 +1,14 @@
 package com.example.shoppingwebsite.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Cart {
 
     @Id
@@ -14,14 +17,18 @@ public class Cart {
 
 
     @JsonBackReference
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
 
     @OneToMany(mappedBy = "cart", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<CartItem> items = new ArrayList<>();
 
-
+    // Running totals of the lines, kept up to date by every cart change and
+    // by item price changes, so reading them never touches the lines.
+    @Column(nullable = false)
+    private BigDecimal totalPrice = BigDecimal.ZERO;
+    private int itemCount;
 
     public Long getId() {
         return id;
@@ -47,6 +54,22 @@ public class Cart {
         this.items = items;
     }
 
+    public BigDecimal getTotalPrice() {
+        return totalPrice;
+    }
+
+    public void setTotalPrice(BigDecimal totalPrice) {
+        this.totalPrice = totalPrice;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public void setItemCount(int itemCount) {
+        this.itemCount = itemCount;
+    }
+
     public void addItem(CartItem item) {
         items.add(item);
         item.setCart(this);
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonBackReference;
 import jakarta.persistence.*;
 
 @Entity
+@Table(indexes = @Index(name = "ux_cart_item_cart_item", columnList = "cart_id, item_id", unique = true))
 public class CartItem {
 
     @Id
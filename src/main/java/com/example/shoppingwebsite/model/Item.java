@@ -1,13 +1,21 @@
 package com.example.shoppingwebsite.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "items")
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "item")
+@Table(name = "items", indexes = @Index(name = "idx_items_price_id", columnList = "price, id"))
 public class Item {
+    // A pooled sequence (not IDENTITY) so Hibernate can batch inserts.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "items_seq")
+    @SequenceGenerator(name = "items_seq", sequenceName = "items_seq", allocationSize = 50)
     private Long id;
     private String name;
     private String description;
@@ -15,6 +23,21 @@ public class Item {
     @Column(nullable = false)
     private BigDecimal price;
     private int stockQuantity;
+    @Version
+    private Long version;
+
+    public Item() {
+    }
+
+    public Item(Item other) {
+        this.id = other.id;
+        this.name = other.name;
+        this.description = other.description;
+        this.imageUrl = other.imageUrl;
+        this.price = other.price;
+        this.stockQuantity = other.stockQuantity;
+        this.version = other.version;
+    }
 
     public Long getId() {
         return id;
@@ -63,4 +86,12 @@ public class Item {
     public void setStockQuantity(int stockQuantity) {
         this.stockQuantity = stockQuantity;
     }
-}
\ No newline at end of file
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
@@ -10,7 +10,7 @@ import java.util.List;
 
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = @Index(name = "ix_orders_user_date", columnList = "user_id, order_date, id"))
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Order {
     @Id
@@ -34,6 +34,9 @@ public class Order {
     @Enumerated(EnumType.STRING)
     private OrderStatus status;
 
+    @Version
+    private Long version;
+
     public Long getId() {
         return id;
     }
@@ -89,4 +92,12 @@ public class Order {
     public void setOrderItems(List<OrderItem> orderItems) {
         this.orderItems = orderItems;
     }
-}
\ No newline at end of file
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
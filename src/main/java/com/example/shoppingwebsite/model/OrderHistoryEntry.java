@@ -0,0 +1,55 @@
+package com.example.shoppingwebsite.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One closed order as its user's order history shows it: the serialized
+ * OrderDTO, written once when the order is closed and never updated, since
+ * closed orders do not change.
+ */
+@Entity
+@Table(name = "order_history",
+        indexes = @Index(name = "ix_order_history_user_date", columnList = "user_id, order_date, order_id"))
+public class OrderHistoryEntry {
+
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "order_date")
+    private LocalDateTime orderDate;
+
+    @Lob
+    @Column(nullable = false)
+    private byte[] payload;
+
+    public OrderHistoryEntry() {
+    }
+
+    public OrderHistoryEntry(Long orderId, Long userId, LocalDateTime orderDate, byte[] payload) {
+        this.orderId = orderId;
+        this.userId = userId;
+        this.orderDate = orderDate;
+        this.payload = payload;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public LocalDateTime getOrderDate() {
+        return orderDate;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+}
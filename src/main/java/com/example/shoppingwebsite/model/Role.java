@@ -0,0 +1,6 @@
+package com.example.shoppingwebsite.model;
+
+public enum Role {
+    USER,
+    ADMIN
+}
@@ -2,6 +2,7 @@ package com.example.shoppingwebsite.model;
 
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import jakarta.persistence.*;
 
@@ -25,6 +26,10 @@ public class User implements UserDetails {
     private String phone;
     private String country;
     private String city;
+    // Registration always creates USER accounts; ADMIN is granted in the database.
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Role role = Role.USER;
 
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<FavoriteItem> favoriteItems = new ArrayList<>();
@@ -108,9 +113,17 @@ public class User implements UserDetails {
         this.favoriteItems = favoriteItems;
     }
 
+    public Role getRole() {
+        return role;
+    }
+
+    public void setRole(Role role) {
+        this.role = role;
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return new ArrayList<>();
+        return List.of(new SimpleGrantedAuthority("ROLE_" + role.name()));
     }
 
     @Override
@@ -0,0 +1,31 @@
+package com.example.shoppingwebsite.repository;
+
+import com.example.shoppingwebsite.model.CartItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+/**
+ * Single-statement cart line operations keyed on the unique
+ * {@code (cart_id, item_id)} index, so a cart change never loads the cart.
+ */
+public interface CartItemRepository extends JpaRepository<CartItem, Long> {
+
+    @Modifying
+    @Query("update CartItem ci set ci.quantity = ci.quantity + :delta " +
+            "where ci.cart.id = :cartId and ci.item.id = :itemId")
+    int addQuantity(@Param("cartId") Long cartId, @Param("itemId") Long itemId, @Param("delta") int delta);
+
+    @Modifying
+    @Query("update CartItem ci set ci.quantity = :quantity where ci.cart.id = :cartId and ci.item.id = :itemId")
+    int updateQuantity(@Param("cartId") Long cartId, @Param("itemId") Long itemId, @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("delete from CartItem ci where ci.cart.id = :cartId and ci.item.id = :itemId")
+    int deleteByCartIdAndItemId(@Param("cartId") Long cartId, @Param("itemId") Long itemId);
+
+    @Modifying
+    @Query("delete from CartItem ci where ci.cart.id = :cartId")
+    int deleteByCartId(@Param("cartId") Long cartId);
+}
@@ -0,0 +1,22 @@
+package com.example.shoppingwebsite.repository;
+
+import com.example.shoppingwebsite.model.Cart;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+public interface CartRepository extends JpaRepository<Cart, Long>, CartRepositoryCustom {
+
+    @Query("select c.id from Cart c where c.user.email = :email")
+    Optional<Long> findIdByUserEmail(@Param("email") String email);
+
+    @Query("select c from Cart c left join fetch c.items ci left join fetch ci.item " +
+            "where c.user.email = :email order by ci.id")
+    Optional<Cart> findWithItemsByUserEmail(@Param("email") String email);
+
+    @Query("select c.totalPrice from Cart c where c.user.email = :email")
+    Optional<BigDecimal> findTotalPriceByUserEmail(@Param("email") String email);
+}
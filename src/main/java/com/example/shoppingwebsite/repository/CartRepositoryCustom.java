@@ -0,0 +1,30 @@
+package com.example.shoppingwebsite.repository;
+
+import java.util.Collection;
+
+public interface CartRepositoryCustom {
+
+    /**
+     * Adds {@code quantityDelta} units of the item, at its current price, to
+     * the cart's stored total price and item count.
+     */
+    void addToTotals(Long cartId, Long itemId, int quantityDelta);
+
+    /**
+     * Moves the cart's stored totals from the line's current quantity of the
+     * item to {@code quantity} (0 for a removed line). Must run before the
+     * line itself changes.
+     */
+    void setLineInTotals(Long cartId, Long itemId, int quantity);
+
+    /**
+     * Zeroes the stored totals of a cart whose lines were all deleted.
+     */
+    void resetTotals(Long cartId);
+
+    /**
+     * Recomputes the stored totals of every cart holding one of the given
+     * items, e.g. after their prices changed. Returns the number of carts updated.
+     */
+    int recalculateTotalsForItems(Collection<Long> itemIds);
+}
@@ -0,0 +1,71 @@
+package com.example.shoppingwebsite.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Maintains the denormalized cart totals. A cart edit applies its own change
+ * to them with a single-row update, whatever the size of the cart; only a
+ * price change recomputes them from the lines. Like the stock updates these
+ * go through JDBC, since a native update issued through Hibernate would drop
+ * every second-level cache region.
+ */
+public class CartRepositoryImpl implements CartRepositoryCustom {
+
+    private static final String ADD_TO_TOTALS =
+            "UPDATE cart SET item_count = item_count + :delta, " +
+            "total_price = total_price + :delta * (SELECT price FROM items WHERE id = :itemId) " +
+            "WHERE id = :cartId";
+
+    private static final String LINE_QUANTITY =
+            "COALESCE((SELECT quantity FROM cart_item WHERE cart_id = :cartId AND item_id = :itemId), 0)";
+
+    private static final String SET_LINE_IN_TOTALS =
+            "UPDATE cart SET item_count = item_count + :quantity - " + LINE_QUANTITY + ", " +
+            "total_price = total_price + (:quantity - " + LINE_QUANTITY + ") * " +
+            "(SELECT price FROM items WHERE id = :itemId) " +
+            "WHERE id = :cartId";
+
+    private static final String SET_TOTALS =
+            "UPDATE cart c SET " +
+            "total_price = (SELECT COALESCE(SUM(ci.quantity * i.price), 0) FROM cart_item ci " +
+            "JOIN items i ON i.id = ci.item_id WHERE ci.cart_id = c.id), " +
+            "item_count = (SELECT COALESCE(SUM(ci.quantity), 0) FROM cart_item ci WHERE ci.cart_id = c.id) ";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Override
+    public void addToTotals(Long cartId, Long itemId, int quantityDelta) {
+        namedParameterJdbcTemplate.update(ADD_TO_TOTALS,
+                Map.of("cartId", cartId, "itemId", itemId, "delta", quantityDelta));
+    }
+
+    @Override
+    public void setLineInTotals(Long cartId, Long itemId, int quantity) {
+        namedParameterJdbcTemplate.update(SET_LINE_IN_TOTALS,
+                Map.of("cartId", cartId, "itemId", itemId, "quantity", quantity));
+    }
+
+    @Override
+    public void resetTotals(Long cartId) {
+        jdbcTemplate.update("UPDATE cart SET total_price = 0, item_count = 0 WHERE id = ?", cartId);
+    }
+
+    @Override
+    public int recalculateTotalsForItems(Collection<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return 0;
+        }
+        return namedParameterJdbcTemplate.update(
+                SET_TOTALS + "WHERE c.id IN (SELECT cart_id FROM cart_item WHERE item_id IN (:itemIds))",
+                Map.of("itemIds", itemIds));
+    }
+}
@@ -3,6 +3,8 @@ package com.example.shoppingwebsite.repository;
 import com.example.shoppingwebsite.model.FavoriteItem;
 import com.example.shoppingwebsite.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,6 +13,9 @@ import java.util.Optional;
 @Repository
 public interface FavoriteItemRepository extends JpaRepository<FavoriteItem, Long> {
     List<FavoriteItem> findByUser(Optional<User> user);
+
+    @Query("select f from FavoriteItem f join fetch f.item where f.user.email = :email order by f.id")
+    List<FavoriteItem> findWithItemByUserEmail(@Param("email") String email);
     boolean existsByUserAndItemId(Optional<User> user, Long itemId);
     void deleteByUserAndItemId(Optional<User> user, Long itemId);
 }
\ No newline at end of file
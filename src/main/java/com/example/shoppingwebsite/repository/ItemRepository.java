@@ -1,12 +1,55 @@
 package com.example.shoppingwebsite.repository;
 
+import com.example.shoppingwebsite.dto.ItemSummary;
 import com.example.shoppingwebsite.model.Item;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import jakarta.persistence.QueryHint;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
-public interface ItemRepository extends JpaRepository<Item, Long> {
-    List<Item> findByNameContainingIgnoreCase(String name);
+public interface ItemRepository extends JpaRepository<Item, Long>, ItemRepositoryCustom {
+    // Forward-only cursor over the whole catalog; must be consumed inside a transaction.
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select i from Item i order by i.id")
+    Stream<Item> streamAllByOrderById();
+
+    // Keyset pagination: the cursor is the last (price, id) the client saw, so
+    // every page is an index range scan no matter how deep the client pages.
+
+    @Query("select new com.example.shoppingwebsite.dto.ItemSummary(i.id, i.name, i.imageUrl, i.price, i.stockQuantity) " +
+            "from Item i where i.id > :afterId order by i.id")
+    List<ItemSummary> findSummariesAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select new com.example.shoppingwebsite.dto.ItemSummary(i.id, i.name, i.imageUrl, i.price, i.stockQuantity) " +
+            "from Item i order by i.price asc, i.id asc")
+    List<ItemSummary> findSummariesByPriceAsc(Pageable pageable);
+
+    @Query("select new com.example.shoppingwebsite.dto.ItemSummary(i.id, i.name, i.imageUrl, i.price, i.stockQuantity) " +
+            "from Item i where i.price > :price or (i.price = :price and i.id > :afterId) " +
+            "order by i.price asc, i.id asc")
+    List<ItemSummary> findSummariesByPriceAscAfter(@Param("price") BigDecimal price,
+                                                   @Param("afterId") Long afterId,
+                                                   Pageable pageable);
+
+    @Query("select new com.example.shoppingwebsite.dto.ItemSummary(i.id, i.name, i.imageUrl, i.price, i.stockQuantity) " +
+            "from Item i order by i.price desc, i.id desc")
+    List<ItemSummary> findSummariesByPriceDesc(Pageable pageable);
+
+    @Query("select new com.example.shoppingwebsite.dto.ItemSummary(i.id, i.name, i.imageUrl, i.price, i.stockQuantity) " +
+            "from Item i where i.price < :price or (i.price = :price and i.id < :afterId) " +
+            "order by i.price desc, i.id desc")
+    List<ItemSummary> findSummariesByPriceDescAfter(@Param("price") BigDecimal price,
+                                                    @Param("afterId") Long afterId,
+                                                    Pageable pageable);
 }
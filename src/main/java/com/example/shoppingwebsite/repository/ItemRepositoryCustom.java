@@ -0,0 +1,32 @@
+package com.example.shoppingwebsite.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface ItemRepositoryCustom {
+
+    /**
+     * Atomically takes {@code quantity} units of stock, but only if that many
+     * are available. Returns false when the item is missing or short.
+     */
+    boolean decreaseStockIfAvailable(Long itemId, int quantity);
+
+    /**
+     * Atomically adds {@code quantity} units of stock. Returns false when the item is missing.
+     */
+    boolean increaseStock(Long itemId, int quantity);
+
+    /**
+     * Takes stock for several items in one JDBC batch of conditional updates,
+     * issued in ascending item-id order so concurrent callers lock rows in the
+     * same sequence. Returns the ids whose update did not apply (missing or
+     * short); the caller is expected to roll back when that list is not empty.
+     */
+    List<Long> decreaseStockIfAvailable(Map<Long, Integer> quantities);
+
+    /**
+     * Current stored stock for the given ids; missing items are absent from the result.
+     */
+    Map<Long, Integer> findStockQuantities(Collection<Long> itemIds);
+}
@@ -0,0 +1,76 @@
+package com.example.shoppingwebsite.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Single-statement stock updates. These go through JDBC rather than a JPQL
+ * bulk update so Hibernate does not drop the whole item cache region on every
+ * stock change; callers refresh the touched items after commit instead. They
+ * bump the optimistic-lock version themselves, so a concurrent JPA write of
+ * the same item fails instead of overwriting the new stock.
+ */
+public class ItemRepositoryImpl implements ItemRepositoryCustom {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Override
+    public boolean decreaseStockIfAvailable(Long itemId, int quantity) {
+        return jdbcTemplate.update(
+                "UPDATE items SET stock_quantity = stock_quantity - ?, version = version + 1 WHERE id = ? AND stock_quantity >= ?",
+                quantity, itemId, quantity) == 1;
+    }
+
+    @Override
+    public boolean increaseStock(Long itemId, int quantity) {
+        return jdbcTemplate.update(
+                "UPDATE items SET stock_quantity = stock_quantity + ?, version = version + 1 WHERE id = ?",
+                quantity, itemId) == 1;
+    }
+
+    @Override
+    public List<Long> decreaseStockIfAvailable(Map<Long, Integer> quantities) {
+        List<Long> itemIds = new ArrayList<>(new TreeMap<>(quantities).keySet());
+        List<Object[]> batch = new ArrayList<>(itemIds.size());
+        for (Long itemId : itemIds) {
+            int quantity = quantities.get(itemId);
+            batch.add(new Object[]{quantity, itemId, quantity});
+        }
+        int[] counts = jdbcTemplate.batchUpdate(
+                "UPDATE items SET stock_quantity = stock_quantity - ?, version = version + 1 WHERE id = ? AND stock_quantity >= ?", batch);
+
+        List<Long> failed = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0 || counts[i] == Statement.EXECUTE_FAILED) {
+                failed.add(itemIds.get(i));
+            }
+        }
+        return failed;
+    }
+
+    @Override
+    public Map<Long, Integer> findStockQuantities(Collection<Long> itemIds) {
+        Map<Long, Integer> stock = new HashMap<>();
+        if (itemIds.isEmpty()) {
+            return stock;
+        }
+        namedParameterJdbcTemplate.query("SELECT id, stock_quantity FROM items WHERE id IN (:ids)",
+                Map.of("ids", itemIds), rs -> {
+                    stock.put(rs.getLong(1), rs.getInt(2));
+                });
+        return stock;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.shoppingwebsite.repository;
+
+import com.example.shoppingwebsite.model.OrderHistoryEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface OrderHistoryRepository extends JpaRepository<OrderHistoryEntry, Long> {
+
+    // One range scan of (user_id, order_date, order_id), newest first.
+    @Query("select h.payload from OrderHistoryEntry h " +
+            "where h.userId = (select u.id from User u where u.email = :email) " +
+            "order by h.orderDate desc, h.orderId desc")
+    List<byte[]> findPayloadsByUserEmail(@Param("email") String email);
+
+    @Modifying
+    @Query("delete from OrderHistoryEntry h where h.userId = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+}
@@ -3,18 +3,56 @@ package com.example.shoppingwebsite.repository;
 import com.example.shoppingwebsite.model.Order;
 import com.example.shoppingwebsite.model.OrderStatus;
 import com.example.shoppingwebsite.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
-    List<Order> findByUser(User user);
     Optional<Order> findByIdAndUser(Long id, User user);
     Optional<Order> findByUserAndStatus(User user, OrderStatus status);
-    List<Order> findByUserAndStatusNotIn(User user, List<OrderStatus> statuses);
 
+    // Order lists are read in two steps: a keyset page of ids (newest first),
+    // then the orders with their lines and items for just those ids. Fetching
+    // the lines in the paged query itself would make Hibernate page in memory.
 
+    @Query("select o.id from Order o where o.user.email = :email and o.status in :statuses " +
+            "order by o.orderDate desc, o.id desc")
+    List<Long> findPageIds(@Param("email") String email,
+                           @Param("statuses") Collection<OrderStatus> statuses,
+                           Pageable pageable);
+
+    @Query("select o.id from Order o where o.user.email = :email and o.status in :statuses " +
+            "and (o.orderDate < :orderDate or (o.orderDate = :orderDate and o.id < :beforeId)) " +
+            "order by o.orderDate desc, o.id desc")
+    List<Long> findPageIdsBefore(@Param("email") String email,
+                                 @Param("statuses") Collection<OrderStatus> statuses,
+                                 @Param("orderDate") LocalDateTime orderDate,
+                                 @Param("beforeId") Long beforeId,
+                                 Pageable pageable);
+
+    @EntityGraph(attributePaths = {"orderItems", "orderItems.item"})
+    List<Order> findByIdIn(Collection<Long> ids);
+
+    @Query("select o.id from Order o where o.status in :statuses and o.id > :afterId " +
+            "and not exists (select h.orderId from OrderHistoryEntry h where h.orderId = o.id) order by o.id")
+    List<Long> findIdsWithoutHistory(@Param("statuses") Collection<OrderStatus> statuses,
+                                     @Param("afterId") Long afterId,
+                                     Pageable pageable);
+
+    /**
+     * The user's order with its lines and their items in one query, for
+     * editing it in place. The user itself is only matched, not loaded.
+     */
+    @Query("select o from Order o left join fetch o.orderItems oi left join fetch oi.item " +
+            "where o.id = :id and o.user.email = :email order by oi.id")
+    Optional<Order> findWithItemsByIdAndUserEmail(@Param("id") Long id, @Param("email") String email);
 }
\ No newline at end of file
@@ -2,9 +2,23 @@ package com.example.shoppingwebsite.repository;
 
 import com.example.shoppingwebsite.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
+
+    /**
+     * The user with favorites and their items in one query. The cart is
+     * joined too, since the inverse one-to-one would otherwise be loaded
+     * with a select of its own.
+     */
+    @Query("select u from User u left join fetch u.favoriteItems f left join fetch f.item " +
+            "left join fetch u.cart where u.email = :email order by f.id")
+    Optional<User> findProfileByEmail(@Param("email") String email);
+
+    @Query("select u.id from User u where u.email = :email")
+    Optional<Long> findIdByEmail(@Param("email") String email);
 }
\ No newline at end of file
@@ -1,20 +1,40 @@
 package com.example.shoppingwebsite.service;
 
+import com.example.shoppingwebsite.dto.CartDTO;
+import com.example.shoppingwebsite.dto.CartItemDTO;
+import com.example.shoppingwebsite.dto.CartOperation;
 import com.example.shoppingwebsite.exception.ItemNotFoundException;
 import com.example.shoppingwebsite.model.Cart;
 import com.example.shoppingwebsite.model.CartItem;
-import com.example.shoppingwebsite.model.Item;
 import com.example.shoppingwebsite.model.User;
+import com.example.shoppingwebsite.repository.CartItemRepository;
+import com.example.shoppingwebsite.repository.CartRepository;
 import com.example.shoppingwebsite.repository.ItemRepository;
 import com.example.shoppingwebsite.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 
 @Service
 public class CartService {
@@ -28,110 +48,304 @@ public class CartService {
     private ItemRepository itemRepository;
 
     @Autowired
-    private final UserService userService;
+    private CartRepository cartRepository;
 
     @Autowired
-    public CartService(UserService userService) {
-        this.userService = userService;
-    }
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private RetryPolicy retryPolicy;
+
+    @Autowired
+    private CartStore cartStore;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Items whose price changed and whose carts still need new totals.
+    private final Set<Long> repricedItemIds = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean repriceScheduled = new AtomicBoolean();
+    private final ExecutorService repricer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cart-reprice");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     public Cart getCart(String userEmail) {
+        if (cartStore.isEnabled()) {
+            return cartFromStore(userEmail);
+        }
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + userEmail));
         logger.info("Retrieved cart for user: {}", userEmail);
         return user.getCart();
     }
 
-    @Transactional
-    public Cart addToCart(String userEmail, Long itemId, int quantity) {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + userEmail));
-        Item item = itemRepository.findById(itemId)
-                .orElseThrow(() -> new ItemNotFoundException("Item not found: " + itemId));
-
-        Cart cart = user.getCart();
-        if (cart == null) {
-            cart = new Cart();
-            cart.setUser(user);
-            user.setCart(cart);
+    /**
+     * Adds {@code quantity} of the item to the user's cart: one UPDATE of the
+     * existing line, or an INSERT if there is none yet, plus one UPDATE of the
+     * cart's totals. Two requests racing to insert the same line hit the
+     * unique (cart_id, item_id) index and the loser is retried as an update.
+     */
+    public void addToCart(String userEmail, Long itemId, int quantity) {
+        if (cartStore.isEnabled()) {
+            requireItem(itemId);
+            cartStore.update(userEmail, lines -> lines.merge(itemId, quantity, Integer::sum));
+        } else {
+            retryPolicy.inTransaction(() -> {
+                Long cartId = findCartId(userEmail).orElseGet(() -> createCart(userEmail));
+                addLine(cartId, itemId, quantity);
+            });
         }
+        logger.info("Added item {} to cart for user {}", itemId, userEmail);
+    }
 
-        CartItem cartItem = cart.getItems().stream()
-                .filter(ci -> ci.getItem().getId().equals(itemId))
-                .findFirst()
-                .orElse(null);
+    public void updateCartItem(String userEmail, Long itemId, int quantity) {
+        if (cartStore.isEnabled()) {
+            cartStore.update(userEmail, lines -> updateLine(lines, itemId, quantity));
+        } else {
+            retryPolicy.inTransaction(() -> {
+                Long cartId = findCartId(userEmail)
+                        .orElseThrow(() -> new ItemNotFoundException("Item not found in cart: " + itemId));
+                updateLine(cartId, itemId, quantity);
+            });
+        }
+        logger.info("Updated item {} quantity to {} for user {}", itemId, quantity, userEmail);
+    }
 
-        if (cartItem == null) {
-            cartItem = new CartItem(cart, item, quantity);
-            cart.addItem(cartItem);
+    /**
+     * Applies a whole cart edit in one transaction: either every operation
+     * takes effect or, if one of them fails, none does.
+     */
+    public void applyOperations(String userEmail, List<CartOperation> operations) {
+        for (CartOperation operation : operations) {
+            validate(operation);
+        }
+        if (cartStore.isEnabled()) {
+            cartStore.update(userEmail, lines -> {
+                for (CartOperation operation : operations) {
+                    switch (operation.getOp()) {
+                        case ADD -> {
+                            requireItem(operation.getItemId());
+                            lines.merge(operation.getItemId(), operation.getQuantity(), Integer::sum);
+                        }
+                        case UPDATE -> updateLine(lines, operation.getItemId(), operation.getQuantity());
+                        case REMOVE -> lines.remove(operation.getItemId());
+                    }
+                }
+            });
         } else {
-            cartItem.setQuantity(cartItem.getQuantity() + quantity);
+            retryPolicy.inTransaction(() -> {
+                boolean adds = operations.stream().anyMatch(op -> op.getOp() == CartOperation.Type.ADD);
+                Optional<Long> existing = findCartId(userEmail);
+                if (existing.isEmpty() && !adds) {
+                    if (operations.stream().anyMatch(op -> op.getOp() == CartOperation.Type.UPDATE)) {
+                        throw new ItemNotFoundException("Item not found in cart");
+                    }
+                    return;
+                }
+                Long cartId = existing.orElseGet(() -> createCart(userEmail));
+                for (CartOperation operation : operations) {
+                    switch (operation.getOp()) {
+                        case ADD -> addLine(cartId, operation.getItemId(), operation.getQuantity());
+                        case UPDATE -> updateLine(cartId, operation.getItemId(), operation.getQuantity());
+                        case REMOVE -> removeLine(cartId, operation.getItemId());
+                    }
+                }
+            });
         }
+        logger.info("Applied {} cart operation(s) for user {}", operations.size(), userEmail);
+    }
 
-        userRepository.save(user);
-        logger.info("Added item {} to cart for user {}", itemId, userEmail);
+    private static void validate(CartOperation operation) {
+        if (operation == null || operation.getOp() == null || operation.getItemId() == null) {
+            throw new IllegalArgumentException("Each operation needs an op and an itemId");
+        }
+        if (operation.getOp() != CartOperation.Type.REMOVE
+                && (operation.getQuantity() == null || operation.getQuantity() <= 0)) {
+            throw new IllegalArgumentException("Quantity must be positive for " + operation);
+        }
+    }
+
+    private void addLine(Long cartId, Long itemId, int quantity) {
+        if (cartItemRepository.addQuantity(cartId, itemId, quantity) == 0) {
+            if (itemService.getItemById(itemId).isEmpty()) {
+                throw new ItemNotFoundException("Item not found: " + itemId);
+            }
+            insertCartItem(cartId, itemId, quantity);
+        }
+        cartRepository.addToTotals(cartId, itemId, quantity);
+    }
+
+    private void requireItem(Long itemId) {
+        if (itemService.getItemById(itemId).isEmpty()) {
+            throw new ItemNotFoundException("Item not found: " + itemId);
+        }
+    }
+
+    private static void updateLine(Map<Long, Integer> lines, Long itemId, int quantity) {
+        if (lines.replace(itemId, quantity) == null) {
+            throw new ItemNotFoundException("Item not found in cart: " + itemId);
+        }
+    }
+
+    /**
+     * A detached Cart built from the in-memory cart store, with items taken
+     * from the in-memory catalog.
+     */
+    private Cart cartFromStore(String userEmail) {
+        Cart cart = new Cart();
+        cartStore.getLines(userEmail).forEach((itemId, quantity) -> itemService.getItemById(itemId)
+                .ifPresent(item -> {
+                    cart.getItems().add(new CartItem(cart, item, quantity));
+                    cart.setTotalPrice(cart.getTotalPrice().add(item.getPrice().multiply(BigDecimal.valueOf(quantity))));
+                    cart.setItemCount(cart.getItemCount() + quantity);
+                }));
         return cart;
     }
 
-    @Transactional
-    public void updateCartItem(String userEmail, Long itemId, int quantity) {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + userEmail));
-        Cart cart = user.getCart();
+    /**
+     * Stored cart totals depend on item prices, so carts holding an item
+     * whose price changed are recomputed; nothing else touches them. The
+     * recompute is queued for the cart-reprice thread, which folds together
+     * price changes that arrive while it is busy, so whoever published the
+     * change never waits for a cart-wide update.
+     */
+    @EventListener
+    public void onItemDeltas(ItemDeltasEvent event) {
+        if (event.getPriceChangedItemIds().isEmpty()) {
+            return;
+        }
+        repricedItemIds.addAll(event.getPriceChangedItemIds());
+        if (repriceScheduled.compareAndSet(false, true)) {
+            try {
+                repricer.execute(this::recalculateRepricedCarts);
+            } catch (RejectedExecutionException e) {
+                repriceScheduled.set(false);
+            }
+        }
+    }
 
-        CartItem cartItem = cart.getItems().stream()
-                .filter(ci -> ci.getItem().getId().equals(itemId))
-                .findFirst()
-                .orElseThrow(() -> new ItemNotFoundException("Item not found in cart: " + itemId));
+    private void recalculateRepricedCarts() {
+        repriceScheduled.set(false);
+        Set<Long> itemIds = new HashSet<>();
+        for (Long itemId : List.copyOf(repricedItemIds)) {
+            if (repricedItemIds.remove(itemId)) {
+                itemIds.add(itemId);
+            }
+        }
+        if (itemIds.isEmpty()) {
+            return;
+        }
+        try {
+            Integer carts = retryPolicy.inTransaction(() -> cartRepository.recalculateTotalsForItems(itemIds));
+            logger.debug("Recalculated totals of {} cart(s) after price changes", carts);
+        } catch (RuntimeException e) {
+            // Kept for the next price change to pick up.
+            logger.error("Recalculating cart totals for {} repriced item(s) failed", itemIds.size(), e);
+            repricedItemIds.addAll(itemIds);
+        }
+    }
 
-        cartItem.setQuantity(quantity);
-        userRepository.save(user);
-        logger.info("Updated item {} quantity to {} for user {}", itemId, quantity, userEmail);
+    @PreDestroy
+    public void shutdown() {
+        repricer.shutdownNow();
     }
 
-    @Transactional
-    public void removeCartItem(String userEmail, Long itemId) {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + userEmail));
-        Cart cart = user.getCart();
+    private void updateLine(Long cartId, Long itemId, int quantity) {
+        // Move the totals while the line still holds its old quantity
+        cartRepository.setLineInTotals(cartId, itemId, quantity);
+        if (cartItemRepository.updateQuantity(cartId, itemId, quantity) == 0) {
+            throw new ItemNotFoundException("Item not found in cart: " + itemId);
+        }
+    }
 
-        cart.getItems().removeIf(ci -> ci.getItem().getId().equals(itemId));
-        userRepository.save(user);
+    private void removeLine(Long cartId, Long itemId) {
+        cartRepository.setLineInTotals(cartId, itemId, 0);
+        cartItemRepository.deleteByCartIdAndItemId(cartId, itemId);
+    }
+
+    public void removeCartItem(String userEmail, Long itemId) {
+        if (cartStore.isEnabled()) {
+            cartStore.update(userEmail, lines -> lines.remove(itemId));
+        } else {
+            retryPolicy.inTransaction(() -> findCartId(userEmail).ifPresent(cartId -> removeLine(cartId, itemId)));
+        }
         logger.info("Removed item {} from cart for user {}", itemId, userEmail);
     }
 
-    @Transactional
     public void clearCart(String userEmail) {
-        User user = userRepository.findByEmail(userEmail)
+        if (cartStore.isEnabled()) {
+            cartStore.update(userEmail, Map::clear);
+        } else {
+            retryPolicy.inTransaction(() -> findCartId(userEmail).ifPresent(cartId -> {
+                cartItemRepository.deleteByCartId(cartId);
+                cartRepository.resetTotals(cartId);
+            }));
+        }
+        logger.info("Cleared cart for user {}", userEmail);
+    }
+
+    /**
+     * The user's cart id, or empty if the user has no cart yet. Throws if
+     * there is no such user.
+     */
+    private Optional<Long> findCartId(String userEmail) {
+        Optional<Long> cartId = cartRepository.findIdByUserEmail(userEmail);
+        if (cartId.isEmpty() && userRepository.findIdByEmail(userEmail).isEmpty()) {
+            throw new UsernameNotFoundException("User not found: " + userEmail);
+        }
+        return cartId;
+    }
+
+    private Long createCart(String userEmail) {
+        Long userId = userRepository.findIdByEmail(userEmail)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + userEmail));
-        Cart cart = user.getCart();
+        Cart cart = new Cart();
+        cart.setUser(userRepository.getReferenceById(userId));
+        try {
+            cartRepository.saveAndFlush(cart);
+        } catch (DataIntegrityViolationException e) {
+            throw new ConcurrencyFailureException("Cart for " + userEmail + " was created concurrently", e);
+        }
+        // Lines are written with bulk statements that bypass this instance's
+        // item list, so don't let a later read in the same session reuse it.
+        entityManager.detach(cart);
+        return cart.getId();
+    }
 
-        if (cart != null) {
-            cart.getItems().clear();
-            userRepository.save(user);
-            logger.info("Cleared cart for user {}", userEmail);
+    private void insertCartItem(Long cartId, Long itemId, int quantity) {
+        CartItem cartItem = new CartItem(cartRepository.getReferenceById(cartId),
+                itemRepository.getReferenceById(itemId), quantity);
+        try {
+            cartItemRepository.saveAndFlush(cartItem);
+        } catch (DataIntegrityViolationException e) {
+            throw new ConcurrencyFailureException("Cart line for item " + itemId + " was inserted concurrently", e);
         }
+        // Same as the cart: a later bulk update of this line must not be
+        // hidden behind the managed instance when the cart is read back.
+        entityManager.detach(cartItem);
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * The cart's running total: a single-row read of the stored total, or a
+     * sum over the in-memory lines when the cart store is enabled.
+     */
     public BigDecimal getCartTotal(String userEmail) {
         try {
-            User user = userRepository.findByEmail(userEmail)
-                    .orElseThrow(() -> new UsernameNotFoundException("User not found: " + userEmail));
-
-            Cart cart = user.getCart();
-            if (cart == null) {
-                logger.info("Cart is null for user: {}", userEmail);
+            if (cartStore.isEnabled()) {
+                return cartFromStore(userEmail).getTotalPrice();
+            }
+            Optional<BigDecimal> total = cartRepository.findTotalPriceByUserEmail(userEmail);
+            if (total.isEmpty()) {
+                // Throws if the user does not exist; otherwise there is simply no cart yet.
+                findCartId(userEmail);
                 return BigDecimal.ZERO;
             }
-
-            BigDecimal total = cart.getItems().stream()
-                    .filter(ci -> ci.getItem() != null && ci.getItem().getPrice() != null)
-                    .map(ci -> ci.getItem().getPrice().multiply(BigDecimal.valueOf(ci.getQuantity())))
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-            logger.info("Calculated cart total for user {}: {}", userEmail, total);
-            return total;
+            return total.get();
         } catch (UsernameNotFoundException e) {
             logger.error("User not found: {}", userEmail);
             throw e;
@@ -141,13 +355,27 @@ public class CartService {
         }
     }
 
-    public Cart getCartForUser(String email) {
-        User user = userService.getUserProfile(email);
-        Cart cart = user.getCart();
-        if (cart != null) {
-            cart.getItems().size();
+    /**
+     * The cart response, read with its lines and their items in one query.
+     */
+    public CartDTO getCartForUser(String email) {
+        if (cartStore.isEnabled()) {
+            return convertToDTO(cartFromStore(email));
         }
-        logger.info("Retrieved cart for user profile: {}", email);
-        return cart;
+        Optional<Cart> cart = cartRepository.findWithItemsByUserEmail(email);
+        if (cart.isEmpty()) {
+            // Throws if the user does not exist; otherwise there is simply no cart yet.
+            findCartId(email);
+            return new CartDTO();
+        }
+        return convertToDTO(cart.get());
+    }
+
+    private CartDTO convertToDTO(Cart cart) {
+        List<CartItemDTO> items = cart.getItems().stream()
+                .map(ci -> new CartItemDTO(ci.getId(), ci.getItem().getId(), ci.getItem().getName(),
+                        ci.getQuantity(), ci.getItem().getPrice(), ci.getItem().getImageUrl()))
+                .collect(Collectors.toList());
+        return new CartDTO(cart.getId(), items, cart.getTotalPrice(), cart.getItemCount());
     }
 }
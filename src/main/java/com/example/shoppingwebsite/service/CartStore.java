@@ -0,0 +1,412 @@
+package com.example.shoppingwebsite.service;
+
+import com.example.shoppingwebsite.model.Item;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Optional write-back cart store ({@code cart.store.write-back.enabled=true}).
+ * <p>
+ * When enabled, active carts live in memory as {@code itemId -> quantity}
+ * lines, one entry per user, guarded by a striped lock so one user's clicks
+ * never wait on another's. Changes only mark the cart dirty; dirty carts are
+ * written to {@code cart}/{@code cart_item} in one JDBC batch every
+ * {@code cart.store.flush-interval-ms}, when they are evicted, and right
+ * before checkout reads them. A crash therefore loses at most one flush
+ * interval of cart edits. The store holds at most {@code cart.store.max-carts}
+ * carts; idle and least recently used ones are written back and dropped, the
+ * latter on a background thread. A cart whose write fails stays dirty and is
+ * retried on its own, without holding back the others.
+ * <p>
+ * Like the stock ledger, this assumes a single application instance.
+ */
+@Component
+public class CartStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(CartStore.class);
+
+    private static final int LOCK_STRIPES = 64;
+
+    private static final class CartState {
+        private final Map<Long, Integer> lines = new LinkedHashMap<>();
+        private Long cartId;
+        private long modifications;
+        private long flushedModifications;
+        private volatile long lastAccessNanos = System.nanoTime();
+
+        private boolean isDirty() {
+            return modifications != flushedModifications;
+        }
+    }
+
+    private record Snapshot(String email, CartState state, Long cartId, Map<Long, Integer> lines, long modifications) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Value("${cart.store.write-back.enabled:false}")
+    private boolean enabled;
+
+    @Value("${cart.store.max-carts:10000}")
+    private int maxCarts;
+
+    @Value("${cart.store.idle-timeout:30m}")
+    private Duration idleTimeout;
+
+    private final TransactionTemplate flushTransaction;
+    private final ConcurrentMap<String, CartState> carts = new ConcurrentHashMap<>();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    // Serializes writers so an older snapshot of a cart can never overwrite a newer one.
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean evictionScheduled = new AtomicBoolean();
+    private final ExecutorService evictor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cart-store-evict");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public CartStore(PlatformTransactionManager transactionManager) {
+        this.flushTransaction = new TransactionTemplate(transactionManager);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * A copy of the user's cart lines in the order they were added.
+     */
+    public Map<Long, Integer> getLines(String email) {
+        synchronized (lockFor(email)) {
+            return new LinkedHashMap<>(stateFor(email).lines);
+        }
+    }
+
+    /**
+     * Applies {@code mutation} to the user's cart lines. It works on a copy, so
+     * if it throws the cart is left as it was.
+     */
+    public void update(String email, Consumer<Map<Long, Integer>> mutation) {
+        synchronized (lockFor(email)) {
+            CartState state = stateFor(email);
+            Map<Long, Integer> lines = new LinkedHashMap<>(state.lines);
+            mutation.accept(lines);
+            state.lines.clear();
+            state.lines.putAll(lines);
+            state.modifications++;
+        }
+        evictIfFull();
+    }
+
+    /**
+     * Empties the user's cart once the surrounding transaction commits, e.g.
+     * after checkout, so a failed checkout leaves the cart untouched.
+     */
+    public void clearOnCommit(String email) {
+        afterCommit(() -> {
+            synchronized (lockFor(email)) {
+                CartState state = carts.get(email);
+                if (state != null && !state.lines.isEmpty()) {
+                    state.lines.clear();
+                    state.modifications++;
+                }
+            }
+        });
+    }
+
+    /**
+     * Forgets the user's cart without writing it, e.g. when the user is deleted.
+     */
+    public void invalidate(String email) {
+        carts.remove(email);
+    }
+
+    /**
+     * Writes the user's cart to the database if it has unsaved changes. Inside
+     * a transaction the write joins it, so a following read sees the lines.
+     */
+    public void flush(String email) {
+        if (!enabled || !carts.containsKey(email)) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            Snapshot snapshot = snapshot(email, carts.get(email));
+            if (snapshot != null) {
+                persist(List.of(snapshot));
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cart.store.flush-interval-ms:5000}")
+    public void flushDirty() {
+        if (!enabled) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            List<Snapshot> dirty = new ArrayList<>();
+            carts.forEach((email, state) -> {
+                Snapshot snapshot = snapshot(email, state);
+                if (snapshot != null) {
+                    dirty.add(snapshot);
+                }
+            });
+            int failed = persistEach(dirty);
+            if (!dirty.isEmpty()) {
+                logger.debug("Flushed {} dirty cart(s), {} failed", dirty.size() - failed, failed);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+        evictIdle();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        evictor.shutdownNow();
+        flushDirty();
+    }
+
+    private CartState stateFor(String email) {
+        CartState state = carts.get(email);
+        if (state == null) {
+            // Queried outside the map's bin lock; callers hold the email's stripe,
+            // and putIfAbsent keeps whichever state got there first.
+            CartState loaded = load(email);
+            state = carts.putIfAbsent(email, loaded);
+            if (state == null) {
+                state = loaded;
+            }
+        }
+        state.lastAccessNanos = System.nanoTime();
+        return state;
+    }
+
+    private CartState load(String email) {
+        CartState state = new CartState();
+        jdbcTemplate.query("SELECT c.id, ci.item_id, ci.quantity FROM cart c " +
+                "JOIN users u ON u.id = c.user_id " +
+                "LEFT JOIN cart_item ci ON ci.cart_id = c.id " +
+                "WHERE u.email = ? ORDER BY ci.id", rs -> {
+            state.cartId = rs.getLong(1);
+            long itemId = rs.getLong(2);
+            if (!rs.wasNull()) {
+                state.lines.put(itemId, rs.getInt(3));
+            }
+        }, email);
+        return state;
+    }
+
+    private Snapshot snapshot(String email, CartState state) {
+        if (state == null) {
+            return null;
+        }
+        synchronized (lockFor(email)) {
+            if (!state.isDirty()) {
+                return null;
+            }
+            return new Snapshot(email, state, state.cartId, new LinkedHashMap<>(state.lines), state.modifications);
+        }
+    }
+
+    /**
+     * Writes the snapshots in one batch and, if that fails, one cart at a time,
+     * so a cart that cannot be written does not hold back the rest. Failed
+     * carts stay dirty for the next flush. Returns how many failed.
+     */
+    private int persistEach(List<Snapshot> snapshots) {
+        if (snapshots.isEmpty()) {
+            return 0;
+        }
+        try {
+            persist(snapshots);
+            return 0;
+        } catch (RuntimeException e) {
+            logger.warn("Batch cart flush failed, writing {} cart(s) one at a time: {}", snapshots.size(), e.getMessage());
+        }
+        int failed = 0;
+        for (Snapshot snapshot : snapshots) {
+            try {
+                persist(List.of(snapshot));
+            } catch (RuntimeException e) {
+                failed++;
+                logger.error("Could not flush the cart of {}, will retry", snapshot.email(), e);
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Replaces the stored lines of every snapshot's cart in one transaction
+     * (joining the caller's, if any) using JDBC batches. The stored totals are
+     * set from the snapshot's lines at catalog prices, as the store shows them.
+     */
+    private void persist(List<Snapshot> snapshots) {
+        Map<Snapshot, Long> cartIds = new LinkedHashMap<>();
+        flushTransaction.executeWithoutResult(status -> {
+            for (Snapshot snapshot : snapshots) {
+                Long cartId = snapshot.cartId() != null ? snapshot.cartId() : findOrCreateCart(snapshot.email());
+                if (cartId != null) {
+                    cartIds.put(snapshot, cartId);
+                }
+            }
+            List<Object[]> deletes = new ArrayList<>();
+            List<Object[]> inserts = new ArrayList<>();
+            List<Object[]> totals = new ArrayList<>();
+            cartIds.forEach((snapshot, cartId) -> {
+                deletes.add(new Object[]{cartId});
+                BigDecimal totalPrice = BigDecimal.ZERO;
+                int itemCount = 0;
+                for (Map.Entry<Long, Integer> line : snapshot.lines().entrySet()) {
+                    inserts.add(new Object[]{cartId, line.getKey(), line.getValue()});
+                    BigDecimal price = itemService.getItemById(line.getKey()).map(Item::getPrice).orElse(BigDecimal.ZERO);
+                    totalPrice = totalPrice.add(price.multiply(BigDecimal.valueOf(line.getValue())));
+                    itemCount += line.getValue();
+                }
+                totals.add(new Object[]{totalPrice, itemCount, cartId});
+            });
+            jdbcTemplate.batchUpdate("DELETE FROM cart_item WHERE cart_id = ?", deletes);
+            jdbcTemplate.batchUpdate("INSERT INTO cart_item (cart_id, item_id, quantity) VALUES (?, ?, ?)", inserts);
+            jdbcTemplate.batchUpdate("UPDATE cart SET total_price = ?, item_count = ? WHERE id = ?", totals);
+        });
+
+        // When joining a checkout transaction the lines only count as saved once it commits.
+        afterCommit(() -> {
+            for (Snapshot snapshot : snapshots) {
+                Long cartId = cartIds.get(snapshot);
+                synchronized (lockFor(snapshot.email())) {
+                    if (cartId == null) {
+                        // The user no longer exists; nothing to keep.
+                        carts.remove(snapshot.email(), snapshot.state());
+                        continue;
+                    }
+                    snapshot.state().cartId = cartId;
+                    snapshot.state().flushedModifications =
+                            Math.max(snapshot.state().flushedModifications, snapshot.modifications());
+                }
+            }
+        });
+    }
+
+    private Long findOrCreateCart(String email) {
+        List<Long> existing = jdbcTemplate.queryForList(
+                "SELECT c.id FROM cart c JOIN users u ON u.id = c.user_id WHERE u.email = ?", Long.class, email);
+        if (!existing.isEmpty()) {
+            return existing.get(0);
+        }
+        int created = jdbcTemplate.update(
+                "INSERT INTO cart (user_id, total_price, item_count) SELECT id, 0, 0 FROM users WHERE email = ?", email);
+        if (created == 0) {
+            return null;
+        }
+        return jdbcTemplate.queryForObject(
+                "SELECT c.id FROM cart c JOIN users u ON u.id = c.user_id WHERE u.email = ?", Long.class, email);
+    }
+
+    private void evictIdle() {
+        long cutoff = System.nanoTime() - idleTimeout.toNanos();
+        carts.forEach((email, state) -> {
+            synchronized (lockFor(email)) {
+                if (!state.isDirty() && state.lastAccessNanos - cutoff < 0) {
+                    carts.remove(email, state);
+                }
+            }
+        });
+    }
+
+    /**
+     * Keeps the store within {@code max-carts}: once it is over, the eviction
+     * thread writes back the least recently used tenth of the carts and drops
+     * them. The request that noticed only hands the work over.
+     */
+    private void evictIfFull() {
+        if (carts.size() > maxCarts && evictionScheduled.compareAndSet(false, true)) {
+            evictor.execute(this::evictLeastRecentlyUsed);
+        }
+    }
+
+    private void evictLeastRecentlyUsed() {
+        evictionScheduled.set(false);
+        if (carts.size() <= maxCarts) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            List<Map.Entry<String, CartState>> oldest = new ArrayList<>(carts.entrySet());
+            oldest.sort(Comparator.comparingLong(entry -> entry.getValue().lastAccessNanos));
+            oldest = oldest.subList(0, Math.max(1, oldest.size() - maxCarts + maxCarts / 10));
+
+            List<Snapshot> dirty = new ArrayList<>();
+            for (Map.Entry<String, CartState> entry : oldest) {
+                Snapshot snapshot = snapshot(entry.getKey(), entry.getValue());
+                if (snapshot != null) {
+                    dirty.add(snapshot);
+                }
+            }
+            persistEach(dirty);
+            for (Map.Entry<String, CartState> entry : oldest) {
+                synchronized (lockFor(entry.getKey())) {
+                    if (!entry.getValue().isDirty()) {
+                        carts.remove(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+            logger.debug("Evicted up to {} cart(s) from the cart store", oldest.size());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private Object lockFor(String email) {
+        return locks[Math.floorMod(email.hashCode(), LOCK_STRIPES)];
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
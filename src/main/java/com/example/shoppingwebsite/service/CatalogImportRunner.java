@@ -0,0 +1,46 @@
+package com.example.shoppingwebsite.service;
+
+import com.example.shoppingwebsite.dto.CatalogImportReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Command-line entry point for the catalog import, e.g.
+ * {@code java -jar app.jar --catalog.import.file=feed.ndjson}. Files ending in
+ * {@code .csv} are read as CSV, anything else as NDJSON.
+ */
+@Component
+@ConditionalOnProperty("catalog.import.file")
+public class CatalogImportRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogImportRunner.class);
+
+    @Autowired
+    private CatalogImportService catalogImportService;
+
+    @Value("${catalog.import.file}")
+    private Path file;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        CatalogImportService.Format format = file.getFileName().toString().endsWith(".csv")
+                ? CatalogImportService.Format.CSV
+                : CatalogImportService.Format.NDJSON;
+        logger.info("Importing catalog from {}", file);
+        try (InputStream input = Files.newInputStream(file)) {
+            CatalogImportReport report = catalogImportService.importItems(input, format);
+            report.getRejected().forEach(row ->
+                    logger.warn("Rejected line {}: {}", row.getLine(), row.getReason()));
+        }
+    }
+}
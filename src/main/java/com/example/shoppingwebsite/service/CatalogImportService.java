@@ -0,0 +1,374 @@
+package com.example.shoppingwebsite.service;
+
+import com.example.shoppingwebsite.dto.CatalogImportReport;
+import com.example.shoppingwebsite.model.Item;
+import com.example.shoppingwebsite.repository.ItemRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk catalog loader for supplier feeds.
+ * <p>
+ * The input is read line by line and cut into chunks. Each chunk is parsed and
+ * validated in parallel on a small pool of its own while the previous chunk is
+ * being written, and every
+ * chunk is written in its own transaction so Hibernate can batch the inserts
+ * and updates and the persistence context never holds more than one chunk.
+ * A chunk that loses a concurrent update is retried; one that still fails is
+ * reported row by row and the import carries on with the next chunk.
+ * Rows with an {@code id} update that item; rows without one are inserted.
+ */
+@Service
+public class CatalogImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogImportService.class);
+
+    private static final int MAX_REPORTED_REJECTIONS = 100;
+    private static final int VALIDATORS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final List<String> CSV_COLUMNS =
+            List.of("id", "name", "description", "image_url", "price", "stock_quantity");
+
+    public enum Format {
+        CSV,
+        NDJSON
+    }
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Autowired
+    private RetryPolicy retryPolicy;
+
+    @Value("${catalog.import.chunk-size:1000}")
+    private int chunkSize;
+
+    private final AtomicInteger validatorCount = new AtomicInteger();
+    private final ExecutorService validators = Executors.newFixedThreadPool(VALIDATORS, runnable -> {
+        Thread thread = new Thread(runnable, "catalog-import-" + validatorCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private record Line(long number, String text) {
+    }
+
+    private record ChunkResult(int inserted, List<Long> updatedIds, List<Row> unknown) {
+    }
+
+    private record Row(long line, Long id, String name, String description, String imageUrl,
+                       BigDecimal price, int stockQuantity, String error) {
+
+        static Row rejected(long line, String error) {
+            return new Row(line, null, null, null, null, null, 0, error);
+        }
+    }
+
+    public CatalogImportReport importItems(InputStream input, Format format) throws IOException {
+        long started = System.nanoTime();
+        CatalogImportReport report = new CatalogImportReport();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            Map<String, Integer> columns = format == Format.CSV ? readCsvHeader(reader) : null;
+            long lineNumber = format == Format.CSV ? 1 : 0;
+
+            CompletableFuture<List<Row>> pending = null;
+            List<Line> chunk = new ArrayList<>(chunkSize);
+            String text;
+            while ((text = reader.readLine()) != null) {
+                lineNumber++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                chunk.add(new Line(lineNumber, text));
+                if (chunk.size() == chunkSize) {
+                    CompletableFuture<List<Row>> next = validateAsync(chunk, format, columns);
+                    if (pending != null) {
+                        write(pending.join(), report);
+                    }
+                    pending = next;
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                CompletableFuture<List<Row>> next = validateAsync(chunk, format, columns);
+                if (pending != null) {
+                    write(pending.join(), report);
+                }
+                pending = next;
+            }
+            if (pending != null) {
+                write(pending.join(), report);
+            }
+        } finally {
+            if (report.getRowsInserted() + report.getRowsUpdated() > 0) {
+                itemService.reloadCatalog();
+            }
+        }
+
+        long elapsedMillis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+        report.setElapsedMillis(elapsedMillis);
+        report.setRowsPerSecond(report.getRowsRead() * 1000.0 / elapsedMillis);
+        logger.info("Catalog import finished: {} read, {} inserted, {} updated, {} rejected, {} failed chunk(s), {} rows/s",
+                report.getRowsRead(), report.getRowsInserted(), report.getRowsUpdated(),
+                report.getRowsRejected(), report.getChunksFailed(), Math.round(report.getRowsPerSecond()));
+        return report;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        validators.shutdownNow();
+    }
+
+    private CompletableFuture<List<Row>> validateAsync(List<Line> chunk, Format format, Map<String, Integer> columns) {
+        // One slice per validator thread, joined back in line order.
+        int sliceSize = (chunk.size() + VALIDATORS - 1) / VALIDATORS;
+        List<CompletableFuture<List<Row>>> slices = new ArrayList<>(VALIDATORS);
+        for (int from = 0; from < chunk.size(); from += sliceSize) {
+            List<Line> slice = chunk.subList(from, Math.min(chunk.size(), from + sliceSize));
+            slices.add(CompletableFuture.supplyAsync(() -> slice.stream()
+                    .map(line -> format == Format.CSV ? parseCsv(line, columns) : parseJson(line))
+                    .collect(Collectors.toList()), validators));
+        }
+        return CompletableFuture.allOf(slices.toArray(new CompletableFuture[0]))
+                .thenApply(done -> slices.stream()
+                        .flatMap(slice -> slice.join().stream())
+                        .collect(Collectors.toList()));
+    }
+
+    private void write(List<Row> rows, CatalogImportReport report) {
+        report.setRowsRead(report.getRowsRead() + rows.size());
+        List<Row> valid = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            if (row.error() == null) {
+                valid.add(row);
+            } else {
+                reject(report, row.line(), row.error());
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        ChunkResult result;
+        try {
+            result = retryPolicy.inTransaction(() -> writeChunk(valid));
+        } catch (RuntimeException e) {
+            // Nothing of this chunk was committed; say so row by row and go on with the next one.
+            logger.warn("Catalog import chunk of {} row(s) from line {} failed", valid.size(), valid.get(0).line(), e);
+            report.setChunksFailed(report.getChunksFailed() + 1);
+            valid.forEach(row -> reject(report, row.line(), "Not imported, its chunk failed: " + e.getMessage()));
+            return;
+        }
+        // Counted only once the chunk has committed.
+        report.setRowsInserted(report.getRowsInserted() + result.inserted());
+        report.setRowsUpdated(report.getRowsUpdated() + result.updatedIds().size());
+        result.unknown().forEach(row -> reject(report, row.line(), "Unknown item id " + row.id()));
+    }
+
+    private ChunkResult writeChunk(List<Row> valid) {
+        Set<Long> ids = valid.stream().map(Row::id).filter(id -> id != null).collect(Collectors.toSet());
+        Map<Long, Item> existing = new HashMap<>();
+        itemRepository.findAllById(ids).forEach(item -> existing.put(item.getId(), item));
+
+        List<Item> inserts = new ArrayList<>();
+        List<Long> updatedIds = new ArrayList<>();
+        List<Row> unknown = new ArrayList<>();
+        for (Row row : valid) {
+            Item item;
+            if (row.id() == null) {
+                item = new Item();
+                inserts.add(item);
+            } else {
+                item = existing.get(row.id());
+                if (item == null) {
+                    unknown.add(row);
+                    continue;
+                }
+                updatedIds.add(row.id());
+                stockLedger.overwrite(row.id(), item.getStockQuantity(), row.stockQuantity());
+            }
+            item.setName(row.name());
+            item.setDescription(row.description());
+            item.setImageUrl(row.imageUrl());
+            item.setPrice(row.price());
+            item.setStockQuantity(row.stockQuantity());
+        }
+        itemRepository.saveAll(inserts);
+        return new ChunkResult(inserts.size(), updatedIds, unknown);
+    }
+
+    private static void reject(CatalogImportReport report, long line, String reason) {
+        report.setRowsRejected(report.getRowsRejected() + 1);
+        if (report.getRejected().size() < MAX_REPORTED_REJECTIONS) {
+            report.getRejected().add(new CatalogImportReport.RejectedRow(line, reason));
+        }
+    }
+
+    private Map<String, Integer> readCsvHeader(BufferedReader reader) throws IOException {
+        String header = reader.readLine();
+        if (header == null) {
+            throw new IllegalArgumentException("CSV input is empty");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = splitCsv(header);
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i).trim().toLowerCase(Locale.ROOT);
+            if (!CSV_COLUMNS.contains(name)) {
+                throw new IllegalArgumentException("Unknown CSV column: " + name);
+            }
+            columns.put(name, i);
+        }
+        for (String required : List.of("name", "price")) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("CSV header is missing column: " + required);
+            }
+        }
+        return columns;
+    }
+
+    private Row parseCsv(Line line, Map<String, Integer> columns) {
+        List<String> values;
+        try {
+            values = splitCsv(line.text());
+        } catch (IllegalArgumentException e) {
+            return Row.rejected(line.number(), e.getMessage());
+        }
+        if (values.size() != columns.size()) {
+            return Row.rejected(line.number(), "Expected " + columns.size() + " columns but found " + values.size());
+        }
+        Map<String, String> fields = new HashMap<>();
+        columns.forEach((name, index) -> fields.put(name, values.get(index)));
+        return toRow(line.number(), fields);
+    }
+
+    private Row parseJson(Line line) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line.text());
+        } catch (IOException e) {
+            return Row.rejected(line.number(), "Malformed JSON");
+        }
+        if (!node.isObject()) {
+            return Row.rejected(line.number(), "Expected a JSON object");
+        }
+        Map<String, String> fields = new HashMap<>();
+        fields.put("id", text(node, "id"));
+        fields.put("name", text(node, "name"));
+        fields.put("description", text(node, "description"));
+        fields.put("image_url", text(node, "imageUrl"));
+        fields.put("price", text(node, "price"));
+        fields.put("stock_quantity", text(node, "stockQuantity"));
+        return toRow(line.number(), fields);
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private static Row toRow(long line, Map<String, String> fields) {
+        String name = blankToNull(fields.get("name"));
+        if (name == null) {
+            return Row.rejected(line, "Name is required");
+        }
+        Long id = null;
+        BigDecimal price;
+        int stock = 0;
+        try {
+            String idText = blankToNull(fields.get("id"));
+            if (idText != null) {
+                id = Long.valueOf(idText);
+            }
+            String priceText = blankToNull(fields.get("price"));
+            if (priceText == null) {
+                return Row.rejected(line, "Price is required");
+            }
+            price = new BigDecimal(priceText);
+            String stockText = blankToNull(fields.get("stock_quantity"));
+            if (stockText != null) {
+                stock = Integer.parseInt(stockText);
+            }
+        } catch (NumberFormatException e) {
+            return Row.rejected(line, "Invalid number: " + e.getMessage());
+        }
+        if (price.signum() < 0) {
+            return Row.rejected(line, "Price must not be negative");
+        }
+        if (stock < 0) {
+            return Row.rejected(line, "Stock quantity must not be negative");
+        }
+        return new Row(line, id, name, blankToNull(fields.get("description")),
+                blankToNull(fields.get("image_url")), price, stock, null);
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    /**
+     * Splits one CSV record. Fields may be quoted, with "" as an escaped quote;
+     * quoted fields may not span lines.
+     */
+    static List<String> splitCsv(String text) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        values.add(current.toString());
+        return values;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.shoppingwebsite.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Already-serialized JSON bodies for the public catalog endpoints. Each entry
+ * remembers the version it was built for and is only served for that
+ * version; when the cache is full it is simply emptied.
+ */
+@Component
+public class CatalogResponseCache {
+
+    private static final int MAX_ENTRIES = 10_000;
+
+    public static final class Body {
+        private final long version;
+        private final byte[] json;
+        private volatile byte[] gzip;
+
+        private Body(long version, byte[] json) {
+            this.version = version;
+            this.json = json;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public byte[] getJson() {
+            return json;
+        }
+
+        public byte[] getGzip() {
+            byte[] compressed = gzip;
+            if (compressed == null) {
+                compressed = compress(json);
+                gzip = compressed;
+            }
+            return compressed;
+        }
+    }
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final ConcurrentMap<String, Body> bodies = new ConcurrentHashMap<>();
+
+    public Body get(String key, long version, Supplier<Object> value) {
+        Body body = bodies.get(key);
+        if (body != null && body.version == version) {
+            return body;
+        }
+        body = new Body(version, serialize(value.get()));
+        if (bodies.size() >= MAX_ENTRIES) {
+            bodies.clear();
+        }
+        bodies.merge(key, body, (old, fresh) -> old.version > fresh.version ? old : fresh);
+        return body;
+    }
+
+    private byte[] serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize catalog response", e);
+        }
+    }
+
+    private static byte[] compress(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.shoppingwebsite.service;
+
+import com.example.shoppingwebsite.dto.CatalogItem;
+import com.example.shoppingwebsite.model.Item;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable, versioned view of the whole catalog, ordered by id. A new
+ * snapshot is built whenever the catalog version moves, so readers never
+ * need a lock.
+ */
+public final class CatalogSnapshot {
+
+    private final long version;
+    private final CatalogItem[] items;
+    private final long[] ids;
+    private final List<CatalogItem> view;
+
+    public CatalogSnapshot(long version, Collection<Item> items) {
+        this(version, items.stream()
+                .map(CatalogItem::new)
+                .sorted((a, b) -> a.getId().compareTo(b.getId()))
+                .toArray(CatalogItem[]::new), null);
+    }
+
+    private CatalogSnapshot(long version, CatalogItem[] items, long[] ids) {
+        this.version = version;
+        this.items = items;
+        this.ids = ids != null ? ids : Arrays.stream(items).mapToLong(CatalogItem::getId).toArray();
+        this.view = Collections.unmodifiableList(Arrays.asList(items));
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<CatalogItem> getItems() {
+        return view;
+    }
+
+    /**
+     * This snapshot with the given items replaced, as of {@code version}; null
+     * if one of them is not in it, in which case a full rebuild is needed.
+     * Only the changed entries are created; the rest are shared.
+     */
+    CatalogSnapshot withChanged(long version, Collection<Item> changed) {
+        CatalogItem[] patched = items.clone();
+        for (Item item : changed) {
+            int at = Arrays.binarySearch(ids, item.getId());
+            if (at < 0) {
+                return null;
+            }
+            patched[at] = new CatalogItem(item);
+        }
+        return new CatalogSnapshot(version, patched, ids);
+    }
+}
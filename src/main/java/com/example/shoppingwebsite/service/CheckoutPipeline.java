@@ -0,0 +1,168 @@
+package com.example.shoppingwebsite.service;
+
+import com.example.shoppingwebsite.dto.OrderDTO;
+import com.example.shoppingwebsite.exception.CheckoutUnavailableException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional asynchronous checkout ({@code checkout.pipeline.enabled=true}).
+ * <p>
+ * Close requests go into a bounded queue and a single worker closes them in
+ * micro-batches of up to {@code checkout.pipeline.max-batch-size} orders,
+ * waiting at most {@code checkout.pipeline.max-wait} for a batch to fill.
+ * Each batch runs in one transaction, so the database commits once per batch
+ * instead of once per order. If any order in a batch fails (short stock, a
+ * concurrent change, ...) the whole batch rolls back and its orders are closed
+ * one by one, each in its own transaction, so one bad order only costs its
+ * batch the group commit. Callers get a future that completes once their
+ * order's transaction has committed; a full queue is rejected straight away.
+ */
+@Component
+public class CheckoutPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(CheckoutPipeline.class);
+
+    private record CloseRequest(Long orderId, String userEmail, CompletableFuture<OrderDTO> result) {
+    }
+
+    @Autowired
+    private OrderService orderService;
+
+    @Value("${checkout.pipeline.enabled:false}")
+    private boolean enabled;
+
+    @Value("${checkout.pipeline.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${checkout.pipeline.max-batch-size:32}")
+    private int maxBatchSize;
+
+    @Value("${checkout.pipeline.max-wait:2ms}")
+    private Duration maxWait;
+
+    private final TransactionTemplate batchTransaction;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "checkout-pipeline");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private BlockingQueue<CloseRequest> queue;
+
+    @Autowired
+    public CheckoutPipeline(PlatformTransactionManager transactionManager) {
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (enabled) {
+            queue = new ArrayBlockingQueue<>(queueCapacity);
+            worker.execute(this::run);
+        }
+    }
+
+    /**
+     * Queues the order for closing. The future completes with the closed
+     * order, or exceptionally with whatever closing it failed with. Only
+     * valid while the pipeline is enabled.
+     */
+    public CompletableFuture<OrderDTO> submit(Long orderId, String userEmail) {
+        if (queue == null) {
+            throw new IllegalStateException("The checkout pipeline is not enabled");
+        }
+        CloseRequest request = new CloseRequest(orderId, userEmail, new CompletableFuture<>());
+        if (!queue.offer(request)) {
+            request.result().completeExceptionally(
+                    new CheckoutUnavailableException("Checkout is busy, please try again"));
+        }
+        return request.result();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        worker.shutdownNow();
+        worker.awaitTermination(5, TimeUnit.SECONDS);
+        if (queue != null) {
+            List<CloseRequest> pending = new ArrayList<>();
+            queue.drainTo(pending);
+            pending.forEach(request -> request.result().completeExceptionally(
+                    new CheckoutUnavailableException("Checkout is shutting down, please try again")));
+        }
+    }
+
+    private void run() {
+        List<CloseRequest> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + maxWait.toNanos();
+                while (batch.size() < maxBatchSize) {
+                    CloseRequest next = queue.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                }
+                process(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            batch.forEach(request -> request.result().completeExceptionally(
+                    new CheckoutUnavailableException("Checkout is shutting down, please try again")));
+        }
+    }
+
+    private void process(List<CloseRequest> batch) {
+        if (batch.size() > 1) {
+            try {
+                List<OrderDTO> closed = batchTransaction.execute(status -> {
+                    List<OrderDTO> orders = new ArrayList<>(batch.size());
+                    for (CloseRequest request : batch) {
+                        orders.add(orderService.closeOrder(request.orderId(), request.userEmail()));
+                    }
+                    return orders;
+                });
+                for (int i = 0; i < batch.size(); i++) {
+                    batch.get(i).result().complete(closed.get(i));
+                }
+                logger.debug("Closed {} orders in one transaction", batch.size());
+                return;
+            } catch (RuntimeException e) {
+                logger.debug("Batch of {} orders rolled back ({}), closing them one by one",
+                        batch.size(), e.getMessage());
+            }
+        }
+        for (CloseRequest request : batch) {
+            try {
+                request.result().complete(orderService.closeOrder(request.orderId(), request.userEmail()));
+            } catch (RuntimeException e) {
+                request.result().completeExceptionally(e);
+            }
+        }
+    }
+}
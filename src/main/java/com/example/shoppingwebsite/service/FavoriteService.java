@@ -1,5 +1,6 @@
 package com.example.shoppingwebsite.service;
 
+import com.example.shoppingwebsite.dto.FavoriteItemDTO;
 import com.example.shoppingwebsite.model.FavoriteItem;
 import com.example.shoppingwebsite.model.Item;
 import com.example.shoppingwebsite.model.User;
@@ -29,13 +30,18 @@ public class FavoriteService {
     @Autowired
     private ItemService itemService;
 
-    public List<Item> getFavoriteItems(String userEmail) {
-        Optional<User> user = userRepository.findByEmail(userEmail);
-        return favoriteItemRepository.findByUser(user).stream()
-                .map(FavoriteItem::getItem)
+    public List<FavoriteItemDTO> getFavoriteItems(String userEmail) {
+        return favoriteItemRepository.findWithItemByUserEmail(userEmail).stream()
+                .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
 
+    public FavoriteItemDTO convertToDTO(FavoriteItem favoriteItem) {
+        Item item = favoriteItem.getItem();
+        return new FavoriteItemDTO(item.getId(), item.getName(), item.getDescription(), item.getImageUrl(),
+                item.getPrice(), item.getStockQuantity());
+    }
+
     @Transactional
     public void addToFavorites(String userEmail, Long itemId) {
         Optional<User> userOptional = userRepository.findByEmail(userEmail);
@@ -0,0 +1,298 @@
+package com.example.shoppingwebsite.service;
+
+import com.example.shoppingwebsite.dto.ItemChange;
+import com.example.shoppingwebsite.model.Item;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans the catalog's {@link ItemDeltasEvent}s out to SSE subscribers.
+ * <p>
+ * Each subscriber keeps only the latest change per watched item and has at
+ * most one send in flight, so a slow client coalesces changes instead of
+ * queueing them. A subscriber whose send takes longer than
+ * {@code catalog.changes.max-send-time} is dropped, and a periodic heartbeat
+ * weeds out clients that went away.
+ */
+@Component
+public class ItemChangeFeed {
+
+    private static final Logger logger = LoggerFactory.getLogger(ItemChangeFeed.class);
+
+    private static final int SENDER_THREADS = 4;
+    private static final int MAX_SPARE_SENDERS = 16;
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final Set<Long> itemIds;
+        private final Map<Long, ItemChange> pending = new ConcurrentHashMap<>();
+        private final AtomicBoolean queued = new AtomicBoolean();
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private volatile long sendStartedNanos;
+        // Set (under the subscriber's monitor) when its send was given up on.
+        private boolean stalled;
+        private boolean spareSender;
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter, Set<Long> itemIds) {
+            this.emitter = emitter;
+            this.itemIds = itemIds;
+        }
+
+        private void offer(ItemChange change) {
+            pending.put(change.getItemId(), change);
+            if (queued.compareAndSet(false, true)) {
+                dirty.add(this);
+            }
+        }
+    }
+
+    @Autowired
+    private ItemService itemService;
+
+    @Value("${catalog.changes.timeout:30m}")
+    private Duration timeout;
+
+    @Value("${catalog.changes.max-send-time:5s}")
+    private Duration maxSendTime;
+
+    private final Map<Long, Set<Subscriber>> subscribersByItem = new ConcurrentHashMap<>();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Queue<Subscriber> dirty = new ConcurrentLinkedQueue<>();
+    // Subscribers a sender thread is writing to right now.
+    private final Set<Subscriber> writing = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger senderCount = new AtomicInteger();
+    private final ThreadPoolExecutor senders = new ThreadPoolExecutor(SENDER_THREADS, SENDER_THREADS,
+            0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+        Thread thread = new Thread(runnable, "item-change-sender-" + senderCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+    private int spareSenders;
+
+    /**
+     * Opens a stream for the given items. The first event carries their
+     * current price and stock so the client does not have to fetch them.
+     */
+    public SseEmitter subscribe(Collection<Long> itemIds) {
+        SseEmitter emitter = newEmitter();
+        Subscriber subscriber = new Subscriber(emitter, Set.copyOf(itemIds));
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+
+        subscribers.add(subscriber);
+        for (Long itemId : subscriber.itemIds) {
+            subscribersByItem.compute(itemId, (id, watching) -> {
+                Set<Subscriber> updated = watching != null ? watching : ConcurrentHashMap.newKeySet();
+                updated.add(subscriber);
+                return updated;
+            });
+        }
+        for (Long itemId : subscriber.itemIds) {
+            itemService.getItemById(itemId).ifPresent(item -> subscriber.offer(changeOf(item)));
+        }
+        return emitter;
+    }
+
+    @EventListener
+    public void onItemDeltas(ItemDeltasEvent event) {
+        for (ItemChange change : event.getChanges()) {
+            Set<Subscriber> watching = subscribersByItem.get(change.getItemId());
+            if (watching != null) {
+                watching.forEach(subscriber -> subscriber.offer(change));
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.changes.dispatch-interval-ms:250}")
+    public void dispatch() {
+        dropStalled();
+        Subscriber subscriber;
+        while ((subscriber = dirty.poll()) != null) {
+            subscriber.queued.set(false);
+            if (subscriber.closed || !subscriber.sending.compareAndSet(false, true)) {
+                // Still busy with the previous batch; its changes keep coalescing
+                // and the sender re-queues the subscriber when it finishes.
+                continue;
+            }
+            Subscriber target = subscriber;
+            try {
+                senders.execute(() -> send(target));
+            } catch (RejectedExecutionException e) {
+                target.sending.set(false);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.changes.heartbeat-interval-ms:30000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.sending.compareAndSet(false, true)) {
+                try {
+                    senders.execute(() -> {
+                        startSend(subscriber);
+                        try {
+                            subscriber.emitter.send(SseEmitter.event().comment("keep-alive"));
+                        } catch (IOException | IllegalStateException e) {
+                            drop(subscriber);
+                        } finally {
+                            finishSend(subscriber);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    subscriber.sending.set(false);
+                }
+            }
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    SseEmitter newEmitter() {
+        return new SseEmitter(timeout.toMillis());
+    }
+
+    private void send(Subscriber subscriber) {
+        startSend(subscriber);
+        try {
+            List<ItemChange> batch = new ArrayList<>(subscriber.pending.size());
+            for (Long itemId : List.copyOf(subscriber.pending.keySet())) {
+                ItemChange change = subscriber.pending.remove(itemId);
+                if (change != null) {
+                    batch.add(change);
+                }
+            }
+            if (!batch.isEmpty()) {
+                subscriber.emitter.send(SseEmitter.event().name("changes").data(batch, MediaType.APPLICATION_JSON));
+            }
+        } catch (IOException | IllegalStateException e) {
+            drop(subscriber);
+        } finally {
+            finishSend(subscriber);
+        }
+    }
+
+    private void startSend(Subscriber subscriber) {
+        synchronized (subscriber) {
+            subscriber.sendStartedNanos = System.nanoTime();
+            writing.add(subscriber);
+        }
+    }
+
+    private void finishSend(Subscriber subscriber) {
+        boolean stalled;
+        synchronized (subscriber) {
+            writing.remove(subscriber);
+            stalled = subscriber.stalled;
+        }
+        subscriber.sending.set(false);
+        if (stalled) {
+            // Only this thread could close the emitter without waiting on the blocked write.
+            if (subscriber.spareSender) {
+                releaseSpareSender();
+            }
+            subscriber.emitter.complete();
+            return;
+        }
+        if (!subscriber.closed && !subscriber.pending.isEmpty() && subscriber.queued.compareAndSet(false, true)) {
+            dirty.add(subscriber);
+        }
+    }
+
+    /**
+     * Disconnects subscribers whose current send has been blocked for longer
+     * than {@code maxSendTime}. The blocked write holds the emitter's monitor,
+     * so the emitter is completed by its sender once the write returns; until
+     * then a spare sender thread stands in, so other subscribers keep getting
+     * their changes.
+     */
+    private void dropStalled() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : writing) {
+            synchronized (subscriber) {
+                if (!writing.contains(subscriber) || now - subscriber.sendStartedNanos <= maxSendTime.toNanos()) {
+                    continue;
+                }
+                writing.remove(subscriber);
+                subscriber.stalled = true;
+                subscriber.spareSender = addSpareSender();
+            }
+            logger.info("Disconnecting change stream subscriber that fell behind");
+            unsubscribe(subscriber);
+        }
+    }
+
+    private synchronized boolean addSpareSender() {
+        if (spareSenders == MAX_SPARE_SENDERS) {
+            return false;
+        }
+        spareSenders++;
+        senders.setMaximumPoolSize(SENDER_THREADS + spareSenders);
+        senders.setCorePoolSize(SENDER_THREADS + spareSenders);
+        return true;
+    }
+
+    private synchronized void releaseSpareSender() {
+        spareSenders--;
+        senders.setCorePoolSize(SENDER_THREADS + spareSenders);
+        senders.setMaximumPoolSize(SENDER_THREADS + spareSenders);
+    }
+
+    private void drop(Subscriber subscriber) {
+        logger.debug("Dropping change stream subscriber watching {} item(s)", subscriber.itemIds.size());
+        unsubscribe(subscriber);
+        subscriber.emitter.complete();
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscriber.closed = true;
+        subscriber.pending.clear();
+        if (!subscribers.remove(subscriber)) {
+            return;
+        }
+        for (Long itemId : subscriber.itemIds) {
+            subscribersByItem.computeIfPresent(itemId, (id, watching) -> {
+                watching.remove(subscriber);
+                return watching.isEmpty() ? null : watching;
+            });
+        }
+    }
+
+    static ItemChange changeOf(Item item) {
+        return new ItemChange(item.getId(), item.getPrice(), item.getStockQuantity(), false);
+    }
+}
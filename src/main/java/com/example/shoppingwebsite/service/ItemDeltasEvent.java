@@ -0,0 +1,34 @@
+package com.example.shoppingwebsite.service;
+
+import com.example.shoppingwebsite.dto.ItemChange;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Published by ItemService after the in-memory catalog picked up new stock
+ * or price values; this is the single change feed behind the SSE stream.
+ */
+public class ItemDeltasEvent {
+
+    private final List<ItemChange> changes;
+    private final Set<Long> priceChangedItemIds;
+
+    public ItemDeltasEvent(List<ItemChange> changes, Collection<Long> priceChangedItemIds) {
+        this.changes = List.copyOf(changes);
+        this.priceChangedItemIds = Set.copyOf(priceChangedItemIds);
+    }
+
+    public List<ItemChange> getChanges() {
+        return changes;
+    }
+
+    /**
+     * Items whose price changed or that were removed; anything derived from
+     * their price has to be recomputed.
+     */
+    public Set<Long> getPriceChangedItemIds() {
+        return priceChangedItemIds;
+    }
+}
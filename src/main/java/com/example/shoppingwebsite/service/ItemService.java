@@ -1,45 +1,527 @@
 package com.example.shoppingwebsite.service;
 
+import com.example.shoppingwebsite.dto.CatalogItem;
+import com.example.shoppingwebsite.dto.ItemChange;
+import com.example.shoppingwebsite.dto.ItemPage;
+import com.example.shoppingwebsite.dto.ItemSuggestion;
+import com.example.shoppingwebsite.dto.ItemSummary;
+import com.example.shoppingwebsite.exception.ItemNotFoundException;
 import com.example.shoppingwebsite.model.Item;
 import com.example.shoppingwebsite.repository.ItemRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class ItemService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ItemService.class);
+
+    public static final int MAX_PAGE_SIZE = 100;
+
     @Autowired
     private ItemRepository itemRepository;
 
-    public List<Item> getAllItems() {
-        return itemRepository.findAll();
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Autowired
+    private StockLevels stockLevels;
+
+    @Autowired
+    private RetryPolicy retryPolicy;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final TransactionTemplate refreshTransaction;
+
+    // Detached copies of every item, keyed by id. Only written under catalogLock,
+    // never mutated once in the map, and never handed out: readers get copies.
+    private final ConcurrentMap<Long, Item> catalog = new ConcurrentHashMap<>();
+    private final AtomicLong catalogVersion = new AtomicLong();
+    private final Object catalogLock = new Object();
+    private final Object loadLock = new Object();
+    private volatile boolean catalogLoaded;
+    // Bumped by every full load so a refresh can tell its rows may be older.
+    private volatile long loadGeneration;
+    private volatile CatalogSnapshot snapshot;
+    private final SearchIndex searchIndex = new SearchIndex();
+    private final SuggestionTrie suggestionTrie = new SuggestionTrie();
+    private final Set<Long> pendingRefresh = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public ItemService(PlatformTransactionManager transactionManager) {
+        this.refreshTransaction = new TransactionTemplate(transactionManager);
+        this.refreshTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.refreshTransaction.setReadOnly(true);
     }
 
+    public List<CatalogItem> getAllItems() {
+        return getCatalogSnapshot().getItems();
+    }
+
+    /**
+     * A copy of the catalog's item, which the caller is free to change.
+     */
     public Optional<Item> getItemById(Long id) {
-        return itemRepository.findById(id);
+        ensureCatalogLoaded();
+        return Optional.ofNullable(catalog.get(id)).map(Item::new);
+    }
+
+    /**
+     * Looks up several items at once, in the order requested. Unknown ids are skipped.
+     */
+    public List<Item> getItemsByIds(List<Long> ids) {
+        ensureCatalogLoaded();
+        List<Item> items = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Item item = catalog.get(id);
+            if (item != null) {
+                items.add(new Item(item));
+            }
+        }
+        return items;
     }
 
     public List<Item> searchItems(String query) {
-        return itemRepository.findByNameContainingIgnoreCase(query);
+        ensureCatalogLoaded();
+        return getItemsByIds(searchIndex.search(query));
+    }
+
+    public List<ItemSuggestion> suggestItems(String prefix, int limit) {
+        ensureCatalogLoaded();
+        return suggestionTrie.suggest(prefix, Math.min(limit, SuggestionTrie.MAX_RESULTS)).stream()
+                .map(suggestion -> new ItemSuggestion(suggestion.id(), suggestion.name()))
+                .toList();
+    }
+
+    /**
+     * Returns one page of item summaries. {@code sort} is one of {@code id},
+     * {@code price_asc} or {@code price_desc}; {@code cursor} is the
+     * {@code nextCursor} of the previous page, or null for the first page.
+     */
+    public ItemPage getItemPage(String cursor, int size, String sort) {
+        if (size <= 0 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        Pageable limit = PageRequest.of(0, size);
+        String[] position = cursor == null || cursor.isEmpty() ? null : decodeCursor(cursor, sort);
+
+        List<ItemSummary> items;
+        switch (sort) {
+            case "id" -> items = itemRepository.findSummariesAfterId(
+                    position == null ? 0L : Long.valueOf(position[2]), limit);
+            case "price_asc" -> items = position == null
+                    ? itemRepository.findSummariesByPriceAsc(limit)
+                    : itemRepository.findSummariesByPriceAscAfter(
+                            new BigDecimal(position[1]), Long.valueOf(position[2]), limit);
+            case "price_desc" -> items = position == null
+                    ? itemRepository.findSummariesByPriceDesc(limit)
+                    : itemRepository.findSummariesByPriceDescAfter(
+                            new BigDecimal(position[1]), Long.valueOf(position[2]), limit);
+            default -> throw new IllegalArgumentException("Unsupported sort: " + sort);
+        }
+
+        String nextCursor = null;
+        if (items.size() == size) {
+            ItemSummary last = items.get(items.size() - 1);
+            nextCursor = encodeCursor(sort, last.getPrice(), last.getId());
+        }
+        return new ItemPage(items, nextCursor);
+    }
+
+    private String encodeCursor(String sort, BigDecimal price, Long id) {
+        String raw = sort + "|" + price.toPlainString() + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor, String sort) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 3 || !parts[0].equals(sort)) {
+                throw new IllegalArgumentException("Cursor does not match sort " + sort);
+            }
+            new BigDecimal(parts[1]);
+            Long.valueOf(parts[2]);
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+
+    /**
+     * Walks the items table with a database cursor, handing each row to
+     * {@code action} and detaching it straight away so memory use stays flat.
+     */
+    @Transactional(readOnly = true)
+    public long forEachItem(Consumer<Item> action) {
+        long count = 0;
+        try (Stream<Item> items = itemRepository.streamAllByOrderById()) {
+            for (Item item : (Iterable<Item>) items::iterator) {
+                action.accept(item);
+                entityManager.detach(item);
+                count++;
+            }
+        }
+        return count;
     }
 
+    /**
+     * Creates or updates an item. An update is applied to the current row, so
+     * a concurrent stock change is retried rather than overwritten; if the
+     * caller sent a version and the row has moved on since, it is rejected.
+     */
     public Item saveItem(Item item) {
-        return itemRepository.save(item);
+        Item saved = retryPolicy.inTransaction(() -> {
+            if (item.getId() == null) {
+                return itemRepository.save(item);
+            }
+            Item current = itemRepository.findById(item.getId())
+                    .orElseThrow(() -> new ItemNotFoundException("Item not found: " + item.getId()));
+            if (item.getVersion() != null && !item.getVersion().equals(current.getVersion())) {
+                throw new RuntimeException("Item was modified by someone else, reload and try again");
+            }
+            current.setName(item.getName());
+            current.setDescription(item.getDescription());
+            current.setImageUrl(item.getImageUrl());
+            current.setPrice(item.getPrice());
+            stockLedger.overwrite(current.getId(), current.getStockQuantity(), item.getStockQuantity());
+            current.setStockQuantity(item.getStockQuantity());
+            return current;
+        });
+        // The writer already has the new stock; the rest of the catalog follows on the refresher.
+        long savedId = saved.getId();
+        int savedStock = saved.getStockQuantity();
+        afterCommit(() -> stockLevels.put(savedId, savedStock));
+        itemsChanged(List.of(savedId));
+        return saved;
     }
 
-    @Transactional
     public boolean updateStock(Long itemId, int quantity) {
-        Item item = itemRepository.findById(itemId)
-                .orElseThrow(() -> new RuntimeException("Item not found"));
-        if (item.getStockQuantity() >= quantity) {
-            item.setStockQuantity(item.getStockQuantity() - quantity);
-            itemRepository.save(item);
+        return retryPolicy.inTransaction(() -> doUpdateStock(itemId, quantity));
+    }
+
+    private boolean doUpdateStock(Long itemId, int quantity) {
+        if (stockLedger.isEnabled()) {
+            return stockLedger.tryDecrease(itemId, quantity);
+        }
+        if (itemRepository.decreaseStockIfAvailable(itemId, quantity)) {
+            itemsChanged(List.of(itemId));
             return true;
         }
+        if (!itemRepository.existsById(itemId)) {
+            throw new RuntimeException("Item not found");
+        }
         return false;
     }
-}
\ No newline at end of file
+
+    /**
+     * Current stock of the item from the live stock map, or
+     * {@link StockLevels#UNKNOWN} if there is no such item.
+     */
+    public int getStockLevel(Long itemId) {
+        ensureCatalogLoaded();
+        return stockLevels.get(itemId);
+    }
+
+    public long getCatalogVersion() {
+        ensureCatalogLoaded();
+        return catalogVersion.get();
+    }
+
+    public CatalogSnapshot getCatalogSnapshot() {
+        ensureCatalogLoaded();
+        CatalogSnapshot current = snapshot;
+        if (current != null && current.getVersion() == catalogVersion.get()) {
+            return current;
+        }
+        synchronized (catalogLock) {
+            current = snapshot;
+            if (current == null || current.getVersion() != catalogVersion.get()) {
+                current = new CatalogSnapshot(catalogVersion.get(), catalog.values());
+                snapshot = current;
+            }
+            return current;
+        }
+    }
+
+    @EventListener
+    public void onItemsChanged(ItemsChangedEvent event) {
+        itemsChanged(event.getItemIds());
+    }
+
+    /**
+     * Re-reads the given items into the in-memory catalog. When called inside a
+     * transaction the refresh is deferred until it commits, so rolled back
+     * changes never become visible. The re-read itself runs on the refresher
+     * thread: the writer neither waits for it nor needs a second connection,
+     * and changes that arrive while a refresh is running are read together.
+     */
+    public void itemsChanged(Collection<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return;
+        }
+        Set<Long> ids = Set.copyOf(itemIds);
+        afterCommit(() -> scheduleRefresh(ids));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void scheduleRefresh(Set<Long> ids) {
+        // Evict exactly the changed rows from the second-level cache right
+        // away, whether or not the catalog is loaded yet; this also covers
+        // writes that bypass the session (bulk or JDBC updates).
+        ids.forEach(id -> entityManagerFactory.getCache().evict(Item.class, id));
+        pendingRefresh.addAll(ids);
+        if (refreshScheduled.compareAndSet(false, true)) {
+            try {
+                refresher.execute(this::refreshPending);
+            } catch (RejectedExecutionException e) {
+                // Shutting down; nobody is left to read the catalog.
+                refreshScheduled.set(false);
+            }
+        }
+    }
+
+    private void refreshPending() {
+        refreshScheduled.set(false);
+        Set<Long> ids = new HashSet<>();
+        for (Long id : List.copyOf(pendingRefresh)) {
+            if (pendingRefresh.remove(id)) {
+                ids.add(id);
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        try {
+            refreshItems(ids);
+        } catch (RuntimeException e) {
+            logger.warn("Catalog refresh of {} item(s) failed, reloading the catalog", ids.size(), e);
+            catalogLoaded = false;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    private void refreshItems(Set<Long> ids) {
+        if (!catalogLoaded) {
+            // Nothing cached yet; the first read will load the current rows.
+            return;
+        }
+        ItemDeltasEvent changes;
+        while (true) {
+            // Read without holding catalogLock; if a full reload was installed
+            // meanwhile its rows may be newer than ours, so read again.
+            long generation = loadGeneration;
+            List<Item> fresh = refreshTransaction.execute(status -> itemRepository.findAllById(ids));
+            synchronized (catalogLock) {
+                if (!catalogLoaded) {
+                    return;
+                }
+                if (generation != loadGeneration) {
+                    continue;
+                }
+                Map<Long, Item> previous = new HashMap<>();
+                boolean sameItems = fresh.size() == ids.size();
+                for (Item item : fresh) {
+                    Item copy = new Item(item);
+                    Item old = catalog.put(item.getId(), copy);
+                    stockLevels.put(item.getId(), item.getStockQuantity());
+                    if (old == null) {
+                        sameItems = false;
+                    } else {
+                        previous.put(item.getId(), old);
+                    }
+                    // The indexes only read the name and description, plus the
+                    // stock as suggestion weight; put() swaps an item's entries
+                    // under one lock, so searches never miss it.
+                    if (old == null || !Objects.equals(old.getName(), item.getName())
+                            || !Objects.equals(old.getDescription(), item.getDescription())) {
+                        searchIndex.put(copy);
+                        suggestionTrie.put(copy);
+                    } else {
+                        suggestionTrie.updateWeight(item.getId(), item.getStockQuantity());
+                    }
+                }
+                Set<Long> deleted = new HashSet<>(ids);
+                fresh.forEach(item -> deleted.remove(item.getId()));
+                for (Long id : deleted) {
+                    Item old = catalog.remove(id);
+                    if (old != null) {
+                        previous.put(id, old);
+                    }
+                    searchIndex.remove(id);
+                    suggestionTrie.remove(id);
+                    stockLevels.remove(id);
+                }
+                long version = catalogVersion.incrementAndGet();
+                // Edits of existing items (typically just their stock) patch the
+                // current snapshot instead of leaving a full rebuild to the next read.
+                CatalogSnapshot current = snapshot;
+                if (sameItems && current != null && current.getVersion() == version - 1) {
+                    snapshot = current.withChanged(version, fresh);
+                }
+                changes = deltas(previous, ids);
+                break;
+            }
+        }
+        logger.debug("Refreshed {} catalog item(s), version {}", ids.size(), catalogVersion.get());
+        publishDeltas(changes);
+    }
+
+    /**
+     * Stock and price differences between the given previous copies and the
+     * catalog as it is now, for the items in {@code ids}.
+     */
+    private ItemDeltasEvent deltas(Map<Long, Item> previous, Collection<Long> ids) {
+        List<ItemChange> changes = new ArrayList<>();
+        Set<Long> priceChanged = new HashSet<>();
+        for (Long id : ids) {
+            Item before = previous.get(id);
+            Item after = catalog.get(id);
+            if (after == null) {
+                if (before != null) {
+                    changes.add(new ItemChange(id, before.getPrice(), 0, true));
+                    priceChanged.add(id);
+                }
+            } else if (before == null) {
+                changes.add(ItemChangeFeed.changeOf(after));
+            } else {
+                boolean newPrice = before.getPrice().compareTo(after.getPrice()) != 0;
+                if (newPrice) {
+                    priceChanged.add(id);
+                }
+                if (newPrice || before.getStockQuantity() != after.getStockQuantity()) {
+                    changes.add(ItemChangeFeed.changeOf(after));
+                }
+            }
+        }
+        return new ItemDeltasEvent(changes, priceChanged);
+    }
+
+    private void publishDeltas(ItemDeltasEvent deltas) {
+        if (!deltas.getChanges().isEmpty()) {
+            eventPublisher.publishEvent(deltas);
+        }
+    }
+
+    /**
+     * Throws away the in-memory catalog and reloads it from the database, e.g.
+     * after a bulk import has touched too many rows to refresh one by one.
+     */
+    public void reloadCatalog() {
+        ItemDeltasEvent changes;
+        synchronized (loadLock) {
+            List<Item> items = refreshTransaction.execute(status -> itemRepository.findAll());
+            synchronized (catalogLock) {
+                Map<Long, Item> previous = new HashMap<>(catalog);
+                boolean wasLoaded = catalogLoaded;
+                install(items);
+                if (!wasLoaded) {
+                    return;
+                }
+                Set<Long> ids = new HashSet<>(previous.keySet());
+                ids.addAll(catalog.keySet());
+                changes = deltas(previous, ids);
+            }
+        }
+        publishDeltas(changes);
+    }
+
+    private void ensureCatalogLoaded() {
+        if (catalogLoaded) {
+            return;
+        }
+        // Loads are serialized on their own lock so the query never runs
+        // while catalogLock is held.
+        synchronized (loadLock) {
+            if (!catalogLoaded) {
+                List<Item> items = refreshTransaction.execute(status -> itemRepository.findAll());
+                synchronized (catalogLock) {
+                    install(items);
+                }
+            }
+        }
+    }
+
+    private void install(List<Item> items) {
+        catalog.clear();
+        stockLevels.reset(items.size());
+        for (Item item : items) {
+            catalog.put(item.getId(), new Item(item));
+            stockLevels.put(item.getId(), item.getStockQuantity());
+        }
+        searchIndex.rebuild(items);
+        suggestionTrie.rebuild(items);
+        catalogVersion.incrementAndGet();
+        loadGeneration++;
+        catalogLoaded = true;
+        logger.info("Loaded {} items into the catalog snapshot", items.size());
+    }
+}
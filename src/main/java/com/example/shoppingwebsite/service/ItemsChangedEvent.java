@@ -0,0 +1,21 @@
+package com.example.shoppingwebsite.service;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Published when item rows were changed outside of ItemService, so the
+ * in-memory catalog can re-read them.
+ */
+public class ItemsChangedEvent {
+
+    private final Set<Long> itemIds;
+
+    public ItemsChangedEvent(Collection<Long> itemIds) {
+        this.itemIds = Set.copyOf(itemIds);
+    }
+
+    public Set<Long> getItemIds() {
+        return itemIds;
+    }
+}
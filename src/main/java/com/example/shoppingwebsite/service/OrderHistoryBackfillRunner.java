@@ -0,0 +1,59 @@
+package com.example.shoppingwebsite.service;
+
+import com.example.shoppingwebsite.repository.OrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Writes history entries at startup for closed orders that have none, e.g.
+ * orders closed before the projection existed. Ids are read a batch at a time
+ * and each batch is recorded in its own transaction; a batch that fails is
+ * logged and skipped, and picked up again on the next start.
+ */
+@Component
+public class OrderHistoryBackfillRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderHistoryBackfillRunner.class);
+
+    private static final int BATCH_SIZE = 100;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private RetryPolicy retryPolicy;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long recorded = 0;
+        long failed = 0;
+        Long afterId = 0L;
+        List<Long> batch;
+        while (!(batch = orderRepository.findIdsWithoutHistory(
+                OrderService.HISTORY_STATUSES, afterId, PageRequest.of(0, BATCH_SIZE))).isEmpty()) {
+            List<Long> ids = batch;
+            try {
+                retryPolicy.inTransaction(() -> orderService.recordHistory(ids));
+                recorded += ids.size();
+            } catch (RuntimeException e) {
+                logger.warn("Could not add orders {} to {} to the order history", ids.get(0),
+                        ids.get(ids.size() - 1), e);
+                failed += ids.size();
+            }
+            afterId = ids.get(ids.size() - 1);
+        }
+        if (recorded > 0 || failed > 0) {
+            logger.info("Added {} closed order(s) to the order history, {} failed", recorded, failed);
+        }
+    }
+}
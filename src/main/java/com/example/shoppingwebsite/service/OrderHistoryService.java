@@ -0,0 +1,74 @@
+package com.example.shoppingwebsite.service;
+
+import com.example.shoppingwebsite.dto.OrderDTO;
+import com.example.shoppingwebsite.model.OrderHistoryEntry;
+import com.example.shoppingwebsite.repository.OrderHistoryRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+/**
+ * The order history read model: an append-only table holding each closed
+ * order's response JSON, keyed for a range read per user. The history
+ * endpoint concatenates the stored payloads instead of rebuilding the orders
+ * from their normalized rows.
+ */
+@Service
+public class OrderHistoryService {
+
+    @Autowired
+    private OrderHistoryRepository orderHistoryRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Appends a closed order to its user's history, in the caller's transaction.
+     */
+    public void record(OrderDTO order) {
+        entityManager.persist(new OrderHistoryEntry(order.getId(), order.getUserId(), order.getOrderDate(),
+                serialize(order)));
+    }
+
+    /**
+     * Removes the user's history, in the caller's transaction.
+     */
+    public void deleteHistory(Long userId) {
+        orderHistoryRepository.deleteByUserId(userId);
+    }
+
+    /**
+     * The user's closed orders as a JSON array, newest first.
+     */
+    public byte[] getHistoryJson(String userEmail) {
+        List<byte[]> payloads = orderHistoryRepository.findPayloadsByUserEmail(userEmail);
+        ByteArrayOutputStream json = new ByteArrayOutputStream(
+                payloads.stream().mapToInt(payload -> payload.length + 1).sum() + 2);
+        json.write('[');
+        for (int i = 0; i < payloads.size(); i++) {
+            if (i > 0) {
+                json.write(',');
+            }
+            json.writeBytes(payloads.get(i));
+        }
+        json.write(']');
+        return json.toByteArray();
+    }
+
+    private byte[] serialize(OrderDTO order) {
+        try {
+            return objectMapper.writeValueAsBytes(order);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize order " + order.getId(), e);
+        }
+    }
+}
@@ -1,22 +1,33 @@
 package com.example.shoppingwebsite.service;
 
 import com.example.shoppingwebsite.model.*;
+import com.example.shoppingwebsite.repository.CartItemRepository;
+import com.example.shoppingwebsite.repository.CartRepository;
 import com.example.shoppingwebsite.repository.OrderRepository;
 import com.example.shoppingwebsite.repository.UserRepository;
 import com.example.shoppingwebsite.repository.ItemRepository;
 import com.example.shoppingwebsite.dto.OrderDTO;
 import com.example.shoppingwebsite.dto.OrderItemDTO;
+import com.example.shoppingwebsite.dto.OrderPage;
+import com.example.shoppingwebsite.exception.InsufficientStockException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
-import java.util.Arrays;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,6 +35,12 @@ public class OrderService {
 
     private static final Logger logger = LoggerFactory.getLogger(OrderService.class);
 
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private static final EnumSet<OrderStatus> ALL_STATUSES = EnumSet.allOf(OrderStatus.class);
+    static final EnumSet<OrderStatus> HISTORY_STATUSES =
+            EnumSet.complementOf(EnumSet.of(OrderStatus.TEMP, OrderStatus.CANCELED));
+
     @Autowired
     private OrderRepository orderRepository;
 
@@ -33,17 +50,40 @@ public class OrderService {
     @Autowired
     private ItemRepository itemRepository;
 
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
     @Autowired
     private ItemService itemService;
 
     @Autowired
     private StockService stockService;
 
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private RetryPolicy retryPolicy;
+
+    @Autowired
+    private CartStore cartStore;
+
+    @Autowired
+    private OrderHistoryService orderHistoryService;
+
     public List<OrderDTO> getUserOrders(String userEmail) {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        List<Order> orders = orderRepository.findByUser(user);
-        return orders.stream().map(this::convertToDTO).collect(Collectors.toList());
+        return loadOrders(orderRepository.findPageIds(userEmail, ALL_STATUSES, Pageable.unpaged()));
+    }
+
+    /**
+     * One page of the user's orders, newest first. Takes two queries whatever
+     * the page size or the number of lines per order.
+     */
+    public OrderPage getUserOrderPage(String userEmail, String cursor, int size) {
+        return orderPage(userEmail, ALL_STATUSES, cursor, size);
     }
 
     public Optional<OrderDTO> getOrder(Long orderId, String userEmail) {
@@ -58,8 +98,11 @@ public class OrderService {
         return orderRepository.findByUserAndStatus(user, OrderStatus.TEMP).map(this::convertToDTO);
     }
 
-    @Transactional
     public OrderDTO addItemToOrder(String userEmail, Long itemId, int quantity) {
+        return retryPolicy.inTransaction(() -> doAddItemToOrder(userEmail, itemId, quantity));
+    }
+
+    private OrderDTO doAddItemToOrder(String userEmail, Long itemId, int quantity) {
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
@@ -92,11 +135,16 @@ public class OrderService {
         }
 
         updateOrderTotalPrice(order);
-        return convertToDTO(orderRepository.save(order));
+        Order savedOrder = orderRepository.save(order);
+        syncReservation(savedOrder);
+        return convertToDTO(savedOrder);
     }
 
-    @Transactional
     public OrderDTO removeItemFromOrder(Long orderId, Long orderItemId, String userEmail) {
+        return retryPolicy.inTransaction(() -> doRemoveItemFromOrder(orderId, orderItemId, userEmail));
+    }
+
+    private OrderDTO doRemoveItemFromOrder(Long orderId, Long orderItemId, String userEmail) {
         logger.info("Removing item from order: orderId={}, orderItemId={}, userEmail={}",
                 orderId, orderItemId, userEmail);
         try {
@@ -106,6 +154,7 @@ public class OrderService {
             if (!order.getUser().getEmail().equals(userEmail)) {
                 throw new RuntimeException("User not authorized to modify this order");
             }
+            requireOpen(order);
 
             boolean removed = order.getOrderItems().removeIf(item -> item.getId().equals(orderItemId));
             if (!removed) {
@@ -120,23 +169,28 @@ public class OrderService {
             }
 
             Order updatedOrder = orderRepository.save(order);
+            syncReservation(updatedOrder);
             logger.info("Item removed successfully: orderId={}", orderId);
             return convertToDTO(updatedOrder);
         } catch (Exception e) {
             logger.error("Error removing item from order", e);
-            throw new RuntimeException("Failed to remove item from order: " + e.getMessage());
+            throw new RuntimeException("Failed to remove item from order: " + e.getMessage(), e);
         }
     }
 
-    @Transactional
     public OrderDTO updateItemQuantity(Long orderId, Long orderItemId, int newQuantity, String userEmail) {
+        return retryPolicy.inTransaction(() -> doUpdateItemQuantity(orderId, orderItemId, newQuantity, userEmail));
+    }
+
+    private OrderDTO doUpdateItemQuantity(Long orderId, Long orderItemId, int newQuantity, String userEmail) {
         logger.info("Updating item quantity: orderId={}, orderItemId={}, newQuantity={}, userEmail={}",
                 orderId, orderItemId, newQuantity, userEmail);
         try {
-            Order order = getOrder(orderId, userEmail)
-                    .map(this::convertToEntity)
+            Order order = orderRepository.findWithItemsByIdAndUserEmail(orderId, userEmail)
                     .orElseThrow(() -> new RuntimeException("Order not found"));
 
+            requireOpen(order);
+
             OrderItem orderItem = order.getOrderItems().stream()
                     .filter(item -> item.getId().equals(orderItemId))
                     .findFirst()
@@ -151,17 +205,25 @@ public class OrderService {
             }
 
             updateOrderTotalPrice(order);
-            OrderDTO updatedOrder = convertToDTO(orderRepository.save(order));
+            // Flush so the returned DTO carries the new version
+            Order savedOrder = orderRepository.saveAndFlush(order);
+            syncReservation(savedOrder);
+            OrderDTO updatedOrder = convertToDTO(savedOrder);
             logger.info("Order updated successfully: orderId={}", orderId);
             return updatedOrder;
+        } catch (InsufficientStockException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Error updating item quantity", e);
-            throw new RuntimeException("Failed to update item quantity: " + e.getMessage());
+            throw new RuntimeException("Failed to update item quantity: " + e.getMessage(), e);
         }
     }
 
-    @Transactional
     public OrderDTO closeOrder(Long orderId, String userEmail) {
+        return retryPolicy.inTransaction(() -> doCloseOrder(orderId, userEmail));
+    }
+
+    private OrderDTO doCloseOrder(Long orderId, String userEmail) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
 
@@ -173,34 +235,40 @@ public class OrderService {
             throw new RuntimeException("Order is already closed");
         }
 
-        // Update item quantities
-        for (OrderItem orderItem : order.getOrderItems()) {
-            Item item = orderItem.getItem();
-            int newStockQuantity = item.getStockQuantity() - orderItem.getQuantity();
-            if (newStockQuantity < 0) {
-                throw new RuntimeException("Not enough stock for item: " + item.getName());
-            }
-            item.setStockQuantity(newStockQuantity);
-            itemRepository.save(item);
-        }
+        // Re-check the order's reservation first: if it expired, the stock may
+        // since have been promised to other TEMP orders.
+        stockReservationService.reserve(order.getId(), reservedQuantities(order));
 
-        order.setStatus(OrderStatus.CLOSED);
-        Order savedOrder = orderRepository.save(order);
+        // Take stock for all lines in one batch; fails as a whole with a shortage report
+        stockService.decreaseStock(reservedQuantities(order));
 
-        // Clear the user's cart
-        User user = order.getUser();
-        Cart cart = user.getCart();
-        if (cart != null) {
-            cart.getItems().clear();
-            user.setCart(cart);
-            userRepository.save(user);
+        order.setStatus(OrderStatus.CLOSED);
+        Order savedOrder = orderRepository.saveAndFlush(order);
+        stockReservationService.releaseOnCommit(savedOrder.getId());
+
+        // Clear the user's cart without loading it
+        cartRepository.findIdByUserEmail(userEmail).ifPresent(cartId -> {
+            cartItemRepository.deleteByCartId(cartId);
+            cartRepository.resetTotals(cartId);
+        });
+        if (cartStore.isEnabled()) {
+            cartStore.clearOnCommit(userEmail);
         }
 
-        return convertToDTO(savedOrder);
+        // Closed orders never change again, so the history keeps this response as is
+        OrderDTO closedOrder = convertToDTO(savedOrder);
+        orderHistoryService.record(closedOrder);
+        return closedOrder;
     }
 
-    @Transactional
     public OrderDTO createOrderFromCart(String userEmail) {
+        return retryPolicy.inTransaction(() -> doCreateOrderFromCart(userEmail));
+    }
+
+    private OrderDTO doCreateOrderFromCart(String userEmail) {
+        // With the write-back cart store, get pending cart edits into this transaction first
+        cartStore.flush(userEmail);
+
         User user = userRepository.findByEmail(userEmail)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
@@ -226,6 +294,7 @@ public class OrderService {
 
         updateOrderTotalPrice(order);
         Order savedOrder = orderRepository.save(order);
+        syncReservation(savedOrder);
 
         return convertToDTO(savedOrder);
     }
@@ -236,11 +305,35 @@ public class OrderService {
                     Order newOrder = new Order();
                     newOrder.setUser(user);
                     newOrder.setStatus(OrderStatus.TEMP);
+                    newOrder.setOrderDate(LocalDateTime.now());
                     newOrder.setTotalPrice(BigDecimal.ZERO);
                     return orderRepository.save(newOrder);
                 });
     }
 
+    /**
+     * Closed orders are final: their stock is taken and their history entry written.
+     */
+    private static void requireOpen(Order order) {
+        if (order.getStatus() == OrderStatus.CLOSED) {
+            throw new RuntimeException("Order is already closed");
+        }
+    }
+
+    private void syncReservation(Order order) {
+        if (order.getStatus() == OrderStatus.TEMP) {
+            stockReservationService.reserve(order.getId(), reservedQuantities(order));
+        } else if (order.getStatus() == OrderStatus.CANCELED) {
+            stockReservationService.release(order.getId());
+        }
+    }
+
+    private Map<Long, Integer> reservedQuantities(Order order) {
+        return order.getOrderItems().stream()
+                .collect(Collectors.groupingBy(oi -> oi.getItem().getId(),
+                        Collectors.summingInt(OrderItem::getQuantity)));
+    }
+
     private void updateOrderTotalPrice(Order order) {
         BigDecimal total = order.getOrderItems().stream()
                 .map(item -> item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
@@ -256,6 +349,7 @@ public class OrderService {
         dto.setShippingAddress(order.getShippingAddress());
         dto.setTotalPrice(order.getTotalPrice());
         dto.setStatus(order.getStatus().toString());
+        dto.setVersion(order.getVersion());
 
         List<OrderItemDTO> orderItemDTOs = order.getOrderItems().stream()
                 .map(this::convertToOrderItemDTO)
@@ -276,47 +370,100 @@ public class OrderService {
         return dto;
     }
 
-    private Order convertToEntity(OrderDTO orderDTO) {
-        Order order = new Order();
-        order.setId(orderDTO.getId());
-        order.setUser(userRepository.findById(orderDTO.getUserId()).orElseThrow(() -> new RuntimeException("User not found")));
-        order.setOrderDate(orderDTO.getOrderDate());
-        order.setShippingAddress(orderDTO.getShippingAddress());
-        order.setTotalPrice(orderDTO.getTotalPrice());
-        order.setStatus(OrderStatus.valueOf(orderDTO.getStatus()));
-
-        List<OrderItem> orderItems = orderDTO.getOrderItems().stream()
-                .map(this::convertToOrderItemEntity)
-                .collect(Collectors.toList());
-        order.setOrderItems(orderItems);
+    /**
+     * The user's closed orders as a JSON array, newest first, read from the
+     * order history projection.
+     */
+    public byte[] getUserOrderHistoryJson(String userEmail) {
+        return orderHistoryService.getHistoryJson(userEmail);
+    }
 
-        return order;
+    /**
+     * Adds the given closed orders to their users' history, in the caller's transaction.
+     */
+    public void recordHistory(List<Long> orderIds) {
+        loadOrders(orderIds).forEach(orderHistoryService::record);
     }
 
-    private OrderItem convertToOrderItemEntity(OrderItemDTO dto) {
-        OrderItem orderItem = new OrderItem();
-        orderItem.setId(dto.getId());
-        orderItem.setItem(itemRepository.findById(dto.getItemId()).orElseThrow(() -> new RuntimeException("Item not found")));
-        orderItem.setQuantity(dto.getQuantity());
-        orderItem.setPrice(dto.getPrice());
-        return orderItem;
+    /**
+     * One page of the user's closed orders, newest first; see {@link #getUserOrderPage}.
+     */
+    public OrderPage getUserOrderHistoryPage(String userEmail, String cursor, int size) {
+        return orderPage(userEmail, HISTORY_STATUSES, cursor, size);
     }
 
-    public List<OrderDTO> getUserOrderHistory(String userEmail) {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        List<Order> orders = orderRepository.findByUserAndStatusNotIn(user, Arrays.asList(OrderStatus.TEMP, OrderStatus.CANCELED));
-        return orders.stream().map(this::convertToDTO).collect(Collectors.toList());
+    private OrderPage orderPage(String userEmail, EnumSet<OrderStatus> statuses, String cursor, int size) {
+        if (size <= 0 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        Pageable limit = PageRequest.of(0, size);
+        List<Long> ids;
+        if (cursor == null || cursor.isEmpty()) {
+            ids = orderRepository.findPageIds(userEmail, statuses, limit);
+        } else {
+            String[] position = decodeCursor(cursor);
+            ids = orderRepository.findPageIdsBefore(userEmail, statuses,
+                    LocalDateTime.parse(position[0]), Long.valueOf(position[1]), limit);
+        }
+
+        List<OrderDTO> orders = loadOrders(ids);
+        String nextCursor = null;
+        if (ids.size() == size && !orders.isEmpty()) {
+            OrderDTO last = orders.get(orders.size() - 1);
+            nextCursor = encodeCursor(last.getOrderDate(), last.getId());
+        }
+        return new OrderPage(orders, nextCursor);
+    }
+
+    /**
+     * The orders with the given ids, with lines and items, in the order of {@code ids}.
+     */
+    private List<OrderDTO> loadOrders(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Order> orders = orderRepository.findByIdIn(ids).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+        return ids.stream()
+                .map(orders::get)
+                .filter(Objects::nonNull)
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    private String encodeCursor(LocalDateTime orderDate, Long id) {
+        String raw = orderDate + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
     }
-    @Transactional
+
+    private String[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            LocalDateTime.parse(parts[0]);
+            Long.valueOf(parts[1]);
+            return parts;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+
     public OrderDTO addItemToExistingOrder(Long orderId, Long itemId, int quantity, String userEmail) {
+        return retryPolicy.inTransaction(() -> doAddItemToExistingOrder(orderId, itemId, quantity, userEmail));
+    }
+
+    private OrderDTO doAddItemToExistingOrder(Long orderId, Long itemId, int quantity, String userEmail) {
         logger.info("Adding item to existing order: orderId={}, itemId={}, quantity={}, userEmail={}",
                 orderId, itemId, quantity, userEmail);
         try {
-            Order order = getOrder(orderId, userEmail)
-                    .map(this::convertToEntity)
+            Order order = orderRepository.findWithItemsByIdAndUserEmail(orderId, userEmail)
                     .orElseThrow(() -> new RuntimeException("Order not found"));
 
+            requireOpen(order);
+
             Item item = itemRepository.findById(itemId)
                     .orElseThrow(() -> new RuntimeException("Item not found"));
 
@@ -350,10 +497,15 @@ public class OrderService {
                 order.setStatus(OrderStatus.TEMP);
             }
 
-            return convertToDTO(orderRepository.save(order));
+            // Flush so the returned DTO carries the new line's id and the new version
+            Order savedOrder = orderRepository.saveAndFlush(order);
+            syncReservation(savedOrder);
+            return convertToDTO(savedOrder);
+        } catch (InsufficientStockException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Error adding item to existing order", e);
-            throw new RuntimeException("Failed to add item to existing order: " + e.getMessage());
+            throw new RuntimeException("Failed to add item to existing order: " + e.getMessage(), e);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,99 @@
+package com.example.shoppingwebsite.service;
+
+import jakarta.persistence.OptimisticLockException;
+import org.hibernate.StaleStateException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs a unit of work in its own transaction and repeats it when it loses an
+ * optimistic-lock race (or a deadlock / lock timeout). Each attempt starts a
+ * fresh transaction, so it re-reads current rows; between attempts it sleeps
+ * a random time up to an exponentially growing cap ("full jitter"), which
+ * spreads out contenders instead of having them collide again in lockstep.
+ * <p>
+ * When called inside an existing transaction the work simply joins it: only
+ * the outermost caller can roll back and start over. When the attempts run
+ * out, the last failure is rethrown as is.
+ */
+@Component
+public class RetryPolicy {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetryPolicy.class);
+
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${transaction.retry.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${transaction.retry.initial-backoff:10ms}")
+    private Duration initialBackoff;
+
+    @Value("${transaction.retry.max-backoff:500ms}")
+    private Duration maxBackoff;
+
+    @Autowired
+    public RetryPolicy(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public <T> T inTransaction(Supplier<T> work) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return work.get();
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> work.get());
+            } catch (RuntimeException e) {
+                if (!isRetryable(e)) {
+                    throw e;
+                }
+                if (attempt >= maxAttempts) {
+                    logger.warn("Giving up after {} attempts on concurrent updates: {}", attempt, e.toString());
+                    throw e;
+                }
+                logger.debug("Attempt {} lost a concurrent update, retrying: {}", attempt, e.getMessage());
+                backoff(attempt);
+            }
+        }
+    }
+
+    public void inTransaction(Runnable work) {
+        inTransaction(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    private void backoff(int attempt) {
+        long cap = Math.min(maxBackoff.toMillis(), initialBackoff.toMillis() << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(cap + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting to retry", e);
+        }
+    }
+
+    private static boolean isRetryable(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConcurrencyFailureException
+                    || cause instanceof OptimisticLockException
+                    || cause instanceof StaleStateException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,237 @@
+package com.example.shoppingwebsite.service;
+
+import com.example.shoppingwebsite.model.Item;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over item names and descriptions.
+ * <p>
+ * Whole tokens are indexed per item, and every token is also broken into its
+ * grams of up to {@value #GRAM} characters, each pointing back at the tokens
+ * that contain it. A query term therefore matches any token that contains it
+ * (the old {@code LIKE '%q%'} behaviour): short terms are a single gram
+ * lookup, longer ones intersect the tokens of their trigrams and check the
+ * few that remain. Indexing costs O(length) per token. Results must match
+ * all query terms and are ranked by where each term matched: name before
+ * description, and whole-token matches before prefix matches before infix
+ * matches.
+ */
+public class SearchIndex {
+
+    static final int GRAM = 3;
+
+    private static final int NAME = 1;
+    private static final int DESCRIPTION = 1 << 1;
+
+    // token -> item id -> NAME/DESCRIPTION bits
+    private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+    // gram (1 to GRAM characters) -> tokens containing it
+    private final Map<String, Set<String>> tokensByGram = new HashMap<>();
+    private final Map<Long, Set<String>> tokensByItem = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void rebuild(Collection<Item> items) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            tokensByGram.clear();
+            tokensByItem.clear();
+            items.forEach(this::index);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes the item, replacing its previous entries in one step.
+     */
+    public void put(Item item) {
+        lock.writeLock().lock();
+        try {
+            unindex(item.getId());
+            index(item);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long itemId) {
+        lock.writeLock().lock();
+        try {
+            unindex(itemId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids of items matching every term of {@code query}, best match first.
+     */
+    public List<Long> search(String query) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> scores = null;
+            for (String term : terms) {
+                Map<Long, Integer> termScores = scoreTerm(term);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    Map<Long, Integer> matchedSoFar = scores;
+                    termScores.keySet().retainAll(matchedSoFar.keySet());
+                    termScores.replaceAll((id, score) -> score + matchedSoFar.get(id));
+                    scores = termScores;
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+            List<Map.Entry<Long, Integer>> ranked = new ArrayList<>(scores.entrySet());
+            ranked.sort(Map.Entry.<Long, Integer>comparingByValue(Comparator.reverseOrder())
+                    .thenComparing(Map.Entry.comparingByKey()));
+            List<Long> ids = new ArrayList<>(ranked.size());
+            ranked.forEach(entry -> ids.add(entry.getKey()));
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Long, Integer> scoreTerm(String term) {
+        Map<Long, Integer> scores = new HashMap<>();
+        for (String token : tokensContaining(term)) {
+            int match = token.equals(term) ? 2 : token.startsWith(term) ? 1 : 0;
+            for (Map.Entry<Long, Integer> posting : postings.get(token).entrySet()) {
+                scores.merge(posting.getKey(), score(posting.getValue(), match), Math::max);
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Scores a token match: {@code match} is 2 for the whole token, 1 for a
+     * prefix and 0 for an infix.
+     */
+    private static int score(int fields, int match) {
+        if ((fields & NAME) != 0) {
+            return match == 2 ? 9 : match == 1 ? 6 : 3;
+        }
+        return match == 2 ? 3 : match == 1 ? 2 : 1;
+    }
+
+    private Set<String> tokensContaining(String term) {
+        if (term.length() <= GRAM) {
+            return tokensByGram.getOrDefault(term, Set.of());
+        }
+        // Start from the rarest trigram, then keep the tokens that really contain the term.
+        Set<String> rarest = null;
+        for (int start = 0; start + GRAM <= term.length(); start++) {
+            Set<String> tokens = tokensByGram.get(term.substring(start, start + GRAM));
+            if (tokens == null) {
+                return Set.of();
+            }
+            if (rarest == null || tokens.size() < rarest.size()) {
+                rarest = tokens;
+            }
+        }
+        Set<String> matches = new HashSet<>();
+        for (String token : rarest) {
+            if (token.contains(term)) {
+                matches.add(token);
+            }
+        }
+        return matches;
+    }
+
+    private void index(Item item) {
+        Set<String> tokens = new HashSet<>();
+        addField(item.getId(), item.getName(), NAME, tokens);
+        addField(item.getId(), item.getDescription(), DESCRIPTION, tokens);
+        if (!tokens.isEmpty()) {
+            tokensByItem.put(item.getId(), tokens);
+        }
+    }
+
+    private void addField(Long itemId, String text, int field, Set<String> tokens) {
+        for (String token : tokenize(text)) {
+            Map<Long, Integer> items = postings.get(token);
+            if (items == null) {
+                items = new HashMap<>();
+                postings.put(token, items);
+                for (String gram : grams(token)) {
+                    tokensByGram.computeIfAbsent(gram, g -> new HashSet<>()).add(token);
+                }
+            }
+            items.merge(itemId, field, (a, b) -> a | b);
+            tokens.add(token);
+        }
+    }
+
+    private void unindex(Long itemId) {
+        Set<String> tokens = tokensByItem.remove(itemId);
+        if (tokens == null) {
+            return;
+        }
+        for (String token : tokens) {
+            Map<Long, Integer> items = postings.get(token);
+            if (items != null) {
+                items.remove(itemId);
+                if (items.isEmpty()) {
+                    postings.remove(token);
+                    for (String gram : grams(token)) {
+                        Set<String> containing = tokensByGram.get(gram);
+                        if (containing != null && containing.remove(token) && containing.isEmpty()) {
+                            tokensByGram.remove(gram);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The distinct substrings of {@code token} of 1 to {@link #GRAM} characters.
+     */
+    static Set<String> grams(String token) {
+        Set<String> grams = new HashSet<>();
+        for (int start = 0; start < token.length(); start++) {
+            for (int length = 1; length <= GRAM && start + length <= token.length(); length++) {
+                grams.add(token.substring(start, start + length));
+            }
+        }
+        return grams;
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean tokenChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (tokenChar && start < 0) {
+                start = i;
+            } else if (!tokenChar && start >= 0) {
+                tokens.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+}
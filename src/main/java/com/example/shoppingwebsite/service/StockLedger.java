@@ -0,0 +1,279 @@
+package com.example.shoppingwebsite.service;
+
+import com.example.shoppingwebsite.exception.ItemNotFoundException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Optional in-memory stock ledger ({@code stock.ledger.enabled=true}).
+ * <p>
+ * When enabled, the ledger is the authority for stock decrements: each item's
+ * available quantity is an {@link AtomicInteger} updated with compare-and-set,
+ * so admitting or rejecting a decrement never touches the database. Committed
+ * changes are accumulated as net deltas per item and written to
+ * {@code items.stock_quantity} in one JDBC batch every
+ * {@code stock.ledger.flush-interval-ms}. The stored quantity therefore lags
+ * the ledger by at most one flush interval, and a crash loses at most the
+ * unflushed deltas. The ledger is rebuilt from the database on startup.
+ */
+@Component
+public class StockLedger {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockLedger.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${stock.ledger.enabled:false}")
+    private boolean enabled;
+
+    private final TransactionTemplate flushTransaction;
+    private final ConcurrentMap<Long, AtomicInteger> available = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, AtomicInteger> pendingDeltas = new ConcurrentHashMap<>();
+    // Held by a flush from reading the deltas until they are off pendingDeltas.
+    private final Object flushLock = new Object();
+    private final AtomicLong version = new AtomicLong();
+
+    @Autowired
+    public StockLedger(PlatformTransactionManager transactionManager) {
+        this.flushTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        jdbcTemplate.query("SELECT id, stock_quantity FROM items", rs -> {
+            available.put(rs.getLong(1), new AtomicInteger(rs.getInt(2)));
+        });
+        logger.info("Stock ledger loaded {} items", available.size());
+    }
+
+    /**
+     * Takes {@code quantity} units if that many are available. Inside a
+     * transaction the units are given back if it rolls back, and only recorded
+     * for flushing once it commits.
+     */
+    public boolean tryDecrease(Long itemId, int quantity) {
+        AtomicInteger stock = stockOf(itemId);
+        if (!take(stock, quantity)) {
+            return false;
+        }
+        settleOnCompletion(itemId, stock, quantity);
+        return true;
+    }
+
+    /**
+     * All-or-nothing variant of {@link #tryDecrease}: either every item gets
+     * its quantity taken, or none does and the ids that were short are returned.
+     */
+    public List<Long> tryDecreaseAll(Map<Long, Integer> quantities) {
+        Map<Long, Integer> sorted = new TreeMap<>(quantities);
+        Map<Long, Integer> taken = new TreeMap<>();
+        List<Long> failed = new ArrayList<>();
+        sorted.forEach((itemId, quantity) -> {
+            if (take(stockOf(itemId), quantity)) {
+                taken.put(itemId, quantity);
+            } else {
+                failed.add(itemId);
+            }
+        });
+        if (!failed.isEmpty()) {
+            taken.forEach((itemId, quantity) -> adjust(stockOf(itemId), quantity));
+            return failed;
+        }
+        taken.forEach((itemId, quantity) -> settleOnCompletion(itemId, stockOf(itemId), quantity));
+        return failed;
+    }
+
+    private boolean take(AtomicInteger stock, int quantity) {
+        int current;
+        do {
+            current = stock.get();
+            if (current < quantity) {
+                return false;
+            }
+        } while (!stock.compareAndSet(current, current - quantity));
+        version.incrementAndGet();
+        return true;
+    }
+
+    private void adjust(AtomicInteger stock, int delta) {
+        stock.addAndGet(delta);
+        version.incrementAndGet();
+    }
+
+    private void settleOnCompletion(Long itemId, AtomicInteger stock, int quantity) {
+        onCompletion(committed -> {
+            if (committed) {
+                pendingDelta(itemId).addAndGet(-quantity);
+            } else {
+                adjust(stock, quantity);
+            }
+        });
+    }
+
+    /**
+     * Adds {@code quantity} units once the surrounding transaction (if any) commits.
+     */
+    public void increase(Long itemId, int quantity) {
+        AtomicInteger stock = stockOf(itemId);
+        onCompletion(committed -> {
+            if (committed) {
+                pendingDelta(itemId).addAndGet(quantity);
+                adjust(stock, quantity);
+            }
+        });
+    }
+
+    public int getStock(Long itemId) {
+        return stockOf(itemId).get();
+    }
+
+    /**
+     * Increases every time an available quantity changes, including decrements
+     * that have not been flushed yet.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Records that the current transaction replaces the item's stored quantity
+     * {@code previousStock} with the absolute {@code newStock} (an admin save or
+     * a catalog import). Call it inside that transaction, after reading the
+     * row: the new value supersedes the item's committed but unflushed delta,
+     * so that is dropped now and handed back if the transaction rolls back. On
+     * commit the ledger moves by as much as the row did. The row's version
+     * check fails the write if a flush changed the row after it was read.
+     */
+    public void overwrite(Long itemId, int previousStock, int newStock) {
+        if (!enabled) {
+            return;
+        }
+        int dropped;
+        synchronized (flushLock) {
+            dropped = pendingDelta(itemId).getAndSet(0);
+        }
+        onCompletion(committed -> {
+            if (committed) {
+                AtomicInteger stock = available.get(itemId);
+                if (stock != null) {
+                    adjust(stock, newStock - previousStock - dropped);
+                }
+            } else {
+                pendingDelta(itemId).addAndGet(dropped);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${stock.ledger.flush-interval-ms:1000}")
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+        // Sorted so concurrent flushers and checkouts touch rows in the same order.
+        Map<Long, Integer> deltas = new TreeMap<>();
+        synchronized (flushLock) {
+            // The deltas stay pending until the UPDATE has committed, and cache
+            // loads wait for this lock, so a load never misses or double-counts one.
+            pendingDeltas.forEach((itemId, delta) -> {
+                int value = delta.get();
+                if (value != 0) {
+                    deltas.put(itemId, value);
+                }
+            });
+            if (deltas.isEmpty()) {
+                return;
+            }
+
+            List<Object[]> batch = new ArrayList<>(deltas.size());
+            deltas.forEach((itemId, delta) -> batch.add(new Object[]{delta, itemId}));
+            try {
+                flushTransaction.executeWithoutResult(status -> jdbcTemplate.batchUpdate(
+                        "UPDATE items SET stock_quantity = stock_quantity + ?, version = version + 1 WHERE id = ?", batch));
+            } catch (RuntimeException e) {
+                logger.error("Stock ledger flush of {} items failed, will retry", deltas.size(), e);
+                return;
+            }
+            deltas.forEach((itemId, delta) -> pendingDelta(itemId).addAndGet(-delta));
+        }
+        logger.debug("Flushed stock deltas for {} items", deltas.size());
+        eventPublisher.publishEvent(new ItemsChangedEvent(deltas.keySet()));
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private AtomicInteger stockOf(Long itemId) {
+        AtomicInteger stock = available.get(itemId);
+        if (stock != null) {
+            return stock;
+        }
+        // Read outside the map's locks, and under flushLock so a flush cannot
+        // be between writing its deltas and taking them off pendingDeltas.
+        synchronized (flushLock) {
+            stock = available.get(itemId);
+            if (stock == null) {
+                List<Integer> stored = jdbcTemplate.queryForList(
+                        "SELECT stock_quantity FROM items WHERE id = ?", Integer.class, itemId);
+                if (stored.isEmpty()) {
+                    throw new ItemNotFoundException("Item not found: " + itemId);
+                }
+                stock = new AtomicInteger(stored.get(0) + pendingDelta(itemId).get());
+                available.put(itemId, stock);
+            }
+            return stock;
+        }
+    }
+
+    private AtomicInteger pendingDelta(Long itemId) {
+        return pendingDeltas.computeIfAbsent(itemId, id -> new AtomicInteger());
+    }
+
+    private static void onCompletion(Consumer<Boolean> action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    action.accept(status == STATUS_COMMITTED);
+                }
+            });
+        } else {
+            action.accept(true);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.shoppingwebsite.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Live {@code itemId -> stockQuantity} map behind the availability endpoints.
+ * <p>
+ * Keys and values are stored interleaved in a single {@code long[]} with
+ * open addressing and linear probing, so an entry costs 16 bytes instead of
+ * a boxed map node. Reads are optimistic ({@link StampedLock}) and only fall
+ * back to a read lock when they raced a write. Item ids are positive, so 0 marks an empty slot.
+ * <p>
+ * The catalog refresh in {@link ItemService} keeps it in step with stock
+ * updates done over JDBC; an admin save publishes its new stock here as soon
+ * as it commits.
+ */
+@Component
+public class StockLevels {
+
+    public static final int UNKNOWN = -1;
+
+    private static final long EMPTY = 0L;
+    private static final int MIN_CAPACITY = 16;
+
+    private final StampedLock lock = new StampedLock();
+    private long[] table = new long[MIN_CAPACITY * 2];
+    // Written under the write lock, read without it by size().
+    private volatile int size;
+
+    /**
+     * Stock of the item, or {@link #UNKNOWN} if it is not in the map.
+     */
+    public int get(long itemId) {
+        long stamp = lock.tryOptimisticRead();
+        int quantity = find(table, itemId);
+        if (lock.validate(stamp)) {
+            return quantity;
+        }
+        stamp = lock.readLock();
+        try {
+            return find(table, itemId);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public void put(long itemId, int quantity) {
+        long stamp = lock.writeLock();
+        try {
+            if ((size + 1) * 4L > capacity() * 3L) {
+                resize(capacity() * 2);
+            }
+            if (insert(table, itemId, quantity)) {
+                size++;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void remove(long itemId) {
+        long stamp = lock.writeLock();
+        try {
+            if (delete(itemId)) {
+                size--;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Replaces the whole map, sized for {@code expectedSize} entries.
+     */
+    public void reset(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * 3L < expectedSize * 4L) {
+            capacity <<= 1;
+        }
+        long stamp = lock.writeLock();
+        try {
+            table = new long[capacity * 2];
+            size = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int capacity() {
+        return table.length / 2;
+    }
+
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    // Reads a single table reference, so a concurrent resize can make the
+    // result stale (caught by validate) but never indexes out of bounds.
+    private static int find(long[] table, long key) {
+        int capacity = table.length / 2;
+        int mask = capacity - 1;
+        int index = slot(key, mask);
+        for (int probes = 0; probes < capacity; probes++) {
+            long current = table[index * 2];
+            if (current == key) {
+                return (int) table[index * 2 + 1];
+            }
+            if (current == EMPTY) {
+                return UNKNOWN;
+            }
+            index = (index + 1) & mask;
+        }
+        return UNKNOWN;
+    }
+
+    private static boolean insert(long[] table, long key, int value) {
+        int mask = table.length / 2 - 1;
+        int index = slot(key, mask);
+        while (true) {
+            long current = table[index * 2];
+            if (current == key) {
+                table[index * 2 + 1] = value;
+                return false;
+            }
+            if (current == EMPTY) {
+                table[index * 2 + 1] = value;
+                table[index * 2] = key;
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private boolean delete(long key) {
+        int mask = capacity() - 1;
+        int index = slot(key, mask);
+        while (table[index * 2] != key) {
+            if (table[index * 2] == EMPTY) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        // Backward-shift deletion keeps probe chains intact without tombstones.
+        int hole = index;
+        int next = (hole + 1) & mask;
+        while (table[next * 2] != EMPTY) {
+            int home = slot(table[next * 2], mask);
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                table[hole * 2] = table[next * 2];
+                table[hole * 2 + 1] = table[next * 2 + 1];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        table[hole * 2] = EMPTY;
+        table[hole * 2 + 1] = 0;
+        return true;
+    }
+
+    private void resize(int newCapacity) {
+        long[] old = table;
+        long[] resized = new long[newCapacity * 2];
+        for (int i = 0; i < old.length; i += 2) {
+            if (old[i] != EMPTY) {
+                insert(resized, old[i], (int) old[i + 1]);
+            }
+        }
+        table = resized;
+    }
+}
@@ -0,0 +1,306 @@
+package com.example.shoppingwebsite.service;
+
+import com.example.shoppingwebsite.dto.StockShortage;
+import com.example.shoppingwebsite.exception.InsufficientStockException;
+import com.example.shoppingwebsite.model.Item;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-bounded stock reservations held by TEMP orders.
+ * <p>
+ * Creating or editing a TEMP order reserves its quantities, so the customer
+ * learns about a shortage up front instead of at checkout. Reservations
+ * expire after {@code stock.reservation.ttl} unless the order is touched
+ * again; expired ones sit in a {@link DelayQueue} and are released in batches
+ * by a periodic sweep. Per-item reserved totals are kept in atomic counters,
+ * so available-to-promise is a constant-time read.
+ * <p>
+ * Reservations live in memory only; at startup they are rebuilt from the
+ * TEMP orders in the database, each with a fresh expiry.
+ */
+@Service
+public class StockReservationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockReservationService.class);
+
+    private static final int LOCK_STRIPES = 64;
+    private static final int SWEEP_BATCH_SIZE = 1000;
+
+    private static final class Reservation implements Delayed {
+        private final Long orderId;
+        private final Map<Long, Integer> quantities;
+        private final long expiresAtNanos;
+
+        private Reservation(Long orderId, Map<Long, Integer> quantities, long expiresAtNanos) {
+            this.orderId = orderId;
+            this.quantities = quantities;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(expiresAtNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(expiresAtNanos, ((Reservation) other).expiresAtNanos);
+        }
+    }
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${stock.reservation.ttl:15m}")
+    private Duration ttl;
+
+    private final ConcurrentMap<Long, AtomicInteger> reservedByItem = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, Reservation> reservationsByOrder = new ConcurrentHashMap<>();
+    private final DelayQueue<Reservation> expiryQueue = new DelayQueue<>();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final AtomicLong version = new AtomicLong();
+
+    public StockReservationService() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Restores the reservations of the TEMP orders in the database. They were
+     * promised before the restart, so they are taken as they are, without
+     * checking availability again.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Map<Long, Map<Long, Integer>> quantitiesByOrder = new HashMap<>();
+        jdbcTemplate.query("SELECT oi.order_id, oi.item_id, oi.quantity FROM order_items oi " +
+                "JOIN orders o ON o.id = oi.order_id WHERE o.status = 'TEMP'", rs -> {
+            quantitiesByOrder.computeIfAbsent(rs.getLong(1), id -> new HashMap<>())
+                    .merge(rs.getLong(2), rs.getInt(3), Integer::sum);
+        });
+        int restored = 0;
+        for (Map.Entry<Long, Map<Long, Integer>> entry : quantitiesByOrder.entrySet()) {
+            Long orderId = entry.getKey();
+            synchronized (lockFor(orderId)) {
+                // An order touched since startup already holds its current reservation.
+                if (!reservationsByOrder.containsKey(orderId)) {
+                    entry.getValue().forEach((itemId, quantity) -> reserved(itemId).addAndGet(quantity));
+                    store(orderId, entry.getValue());
+                    restored++;
+                }
+            }
+        }
+        logger.info("Rebuilt stock reservations for {} TEMP orders", restored);
+    }
+
+    /**
+     * Makes {@code quantities} (item id to quantity) the reservation held by
+     * the order, renewing its expiry. Only the increase over what the order
+     * already holds has to be available. Throws {@link InsufficientStockException}
+     * listing every short item, leaving the previous reservation in place. If
+     * the surrounding transaction rolls back, the previous reservation is
+     * restored.
+     */
+    public void reserve(Long orderId, Map<Long, Integer> quantities) {
+        synchronized (lockFor(orderId)) {
+            Reservation previous = reservationsByOrder.get(orderId);
+            Map<Long, Integer> held = previous == null ? Map.of() : previous.quantities;
+
+            TreeSet<Long> itemIds = new TreeSet<>(held.keySet());
+            itemIds.addAll(quantities.keySet());
+            Map<Long, Integer> taken = new HashMap<>();
+            List<StockShortage> shortages = new ArrayList<>();
+            for (Long itemId : itemIds) {
+                int delta = quantities.getOrDefault(itemId, 0) - held.getOrDefault(itemId, 0);
+                if (delta > 0) {
+                    if (tryReserve(itemId, delta)) {
+                        taken.put(itemId, delta);
+                    } else {
+                        shortages.add(shortage(itemId, quantities.get(itemId), held.getOrDefault(itemId, 0)));
+                    }
+                }
+            }
+            if (!shortages.isEmpty()) {
+                taken.forEach((itemId, delta) -> reserved(itemId).addAndGet(-delta));
+                throw new InsufficientStockException(shortages);
+            }
+            for (Long itemId : itemIds) {
+                int delta = quantities.getOrDefault(itemId, 0) - held.getOrDefault(itemId, 0);
+                if (delta < 0) {
+                    reserved(itemId).addAndGet(delta);
+                }
+            }
+            store(orderId, quantities);
+            onRollback(() -> restore(orderId, previous));
+        }
+    }
+
+    public void release(Long orderId) {
+        reserve(orderId, Map.of());
+    }
+
+    /**
+     * Releases the order's reservation once the surrounding transaction commits,
+     * e.g. when checkout has turned it into a real stock decrement.
+     */
+    public void releaseOnCommit(Long orderId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    release(orderId);
+                }
+            });
+        } else {
+            release(orderId);
+        }
+    }
+
+    public int getReservedQuantity(Long itemId) {
+        AtomicInteger reserved = reservedByItem.get(itemId);
+        return reserved == null ? 0 : reserved.get();
+    }
+
+    /**
+     * Stock that can still be promised to new orders.
+     */
+    public int getAvailableQuantity(Long itemId) {
+        return Math.max(0, stockOf(itemId) - getReservedQuantity(itemId));
+    }
+
+    /**
+     * Increases every time any reservation changes.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    @Scheduled(fixedDelayString = "${stock.reservation.sweep-interval-ms:1000}")
+    public void releaseExpired() {
+        List<Reservation> expired = new ArrayList<>();
+        while (expiryQueue.drainTo(expired, SWEEP_BATCH_SIZE) > 0) {
+            int released = 0;
+            for (Reservation reservation : expired) {
+                synchronized (lockFor(reservation.orderId)) {
+                    // Renewed reservations leave their old entry in the queue; skip those.
+                    if (reservationsByOrder.remove(reservation.orderId, reservation)) {
+                        reservation.quantities.forEach((itemId, quantity) -> reserved(itemId).addAndGet(-quantity));
+                        released++;
+                    }
+                }
+            }
+            if (released > 0) {
+                version.incrementAndGet();
+                logger.info("Released {} expired stock reservations", released);
+            }
+            expired.clear();
+        }
+    }
+
+    private boolean tryReserve(Long itemId, int quantity) {
+        AtomicInteger reserved = reserved(itemId);
+        int stock = stockOf(itemId);
+        int current;
+        do {
+            current = reserved.get();
+            if (stock - current < quantity) {
+                return false;
+            }
+        } while (!reserved.compareAndSet(current, current + quantity));
+        return true;
+    }
+
+    private StockShortage shortage(Long itemId, int requested, int held) {
+        String name = itemService.getItemById(itemId).map(Item::getName).orElse(String.valueOf(itemId));
+        int available = Math.max(0, stockOf(itemId) - getReservedQuantity(itemId)) + held;
+        return new StockShortage(itemId, name, requested, available);
+    }
+
+    private void restore(Long orderId, Reservation previous) {
+        synchronized (lockFor(orderId)) {
+            Reservation current = reservationsByOrder.get(orderId);
+            if (current != null) {
+                current.quantities.forEach((itemId, quantity) -> reserved(itemId).addAndGet(-quantity));
+            }
+            Map<Long, Integer> quantities = previous == null ? Map.of() : previous.quantities;
+            quantities.forEach((itemId, quantity) -> reserved(itemId).addAndGet(quantity));
+            store(orderId, quantities);
+        }
+    }
+
+    private void store(Long orderId, Map<Long, Integer> quantities) {
+        Map<Long, Integer> held = new HashMap<>();
+        quantities.forEach((itemId, quantity) -> {
+            if (quantity > 0) {
+                held.put(itemId, quantity);
+            }
+        });
+        if (held.isEmpty()) {
+            reservationsByOrder.remove(orderId);
+        } else {
+            Reservation reservation = new Reservation(orderId, Map.copyOf(held), System.nanoTime() + ttl.toNanos());
+            reservationsByOrder.put(orderId, reservation);
+            expiryQueue.add(reservation);
+        }
+        version.incrementAndGet();
+    }
+
+    private int stockOf(Long itemId) {
+        if (stockLedger.isEnabled()) {
+            return stockLedger.getStock(itemId);
+        }
+        return Math.max(0, itemService.getStockLevel(itemId));
+    }
+
+    private AtomicInteger reserved(Long itemId) {
+        return reservedByItem.computeIfAbsent(itemId, id -> new AtomicInteger());
+    }
+
+    private Object lockFor(Long orderId) {
+        return locks[Math.floorMod(orderId.hashCode(), LOCK_STRIPES)];
+    }
+
+    private static void onRollback(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        action.run();
+                    }
+                }
+            });
+        }
+    }
+}
@@ -1,43 +1,104 @@
 package com.example.shoppingwebsite.service;
 
+import com.example.shoppingwebsite.dto.StockShortage;
+import com.example.shoppingwebsite.exception.InsufficientStockException;
 import com.example.shoppingwebsite.model.Item;
 import com.example.shoppingwebsite.repository.ItemRepository;
-import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
 @Service
 public class StockService {
 
     @Autowired
     private ItemRepository itemRepository;
 
-    @Transactional
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Autowired
+    private RetryPolicy retryPolicy;
+
     public boolean decreaseStock(Long itemId, int quantity) {
-        Item item = itemRepository.findById(itemId)
-                .orElseThrow(() -> new RuntimeException("Item not found"));
+        return retryPolicy.inTransaction(() -> doDecreaseStock(itemId, quantity));
+    }
 
-        if (item.getStockQuantity() >= quantity) {
-            item.setStockQuantity(item.getStockQuantity() - quantity);
-            itemRepository.save(item);
+    private boolean doDecreaseStock(Long itemId, int quantity) {
+        if (stockLedger.isEnabled()) {
+            return stockLedger.tryDecrease(itemId, quantity);
+        }
+        if (itemRepository.decreaseStockIfAvailable(itemId, quantity)) {
+            itemService.itemsChanged(List.of(itemId));
             return true;
         }
+        if (!itemRepository.existsById(itemId)) {
+            throw new RuntimeException("Item not found");
+        }
         return false;
     }
 
-    @Transactional
+    /**
+     * Takes stock for every line of an order at once, in ascending item-id
+     * order. Throws {@link InsufficientStockException} listing every short item
+     * if any of them cannot be covered; the transaction then rolls back so no
+     * item is decremented.
+     */
+    public void decreaseStock(Map<Long, Integer> quantities) {
+        retryPolicy.inTransaction(() -> doDecreaseStock(quantities));
+    }
+
+    private void doDecreaseStock(Map<Long, Integer> quantities) {
+        Map<Long, Integer> sorted = new TreeMap<>(quantities);
+        List<Long> failed = stockLedger.isEnabled()
+                ? stockLedger.tryDecreaseAll(sorted)
+                : itemRepository.decreaseStockIfAvailable(sorted);
+        if (!failed.isEmpty()) {
+            throw new InsufficientStockException(shortages(failed, sorted));
+        }
+        if (!stockLedger.isEnabled()) {
+            itemService.itemsChanged(sorted.keySet());
+        }
+    }
+
+    private List<StockShortage> shortages(List<Long> itemIds, Map<Long, Integer> requested) {
+        Map<Long, Integer> stored = stockLedger.isEnabled() ? Map.of() : itemRepository.findStockQuantities(itemIds);
+        return itemIds.stream()
+                .map(itemId -> new StockShortage(itemId,
+                        itemService.getItemById(itemId).map(Item::getName).orElse("unknown item " + itemId),
+                        requested.get(itemId),
+                        stockLedger.isEnabled() ? stockLedger.getStock(itemId) : stored.getOrDefault(itemId, 0)))
+                .toList();
+    }
+
     public void increaseStock(Long itemId, int quantity) {
-        Item item = itemRepository.findById(itemId)
-                .orElseThrow(() -> new RuntimeException("Item not found"));
+        retryPolicy.inTransaction(() -> doIncreaseStock(itemId, quantity));
+    }
 
-        item.setStockQuantity(item.getStockQuantity() + quantity);
-        itemRepository.save(item);
+    private void doIncreaseStock(Long itemId, int quantity) {
+        if (stockLedger.isEnabled()) {
+            stockLedger.increase(itemId, quantity);
+            return;
+        }
+        if (!itemRepository.increaseStock(itemId, quantity)) {
+            throw new RuntimeException("Item not found");
+        }
+        itemService.itemsChanged(List.of(itemId));
     }
 
     public int getStockQuantity(Long itemId) {
+        if (stockLedger.isEnabled()) {
+            return stockLedger.getStock(itemId);
+        }
         Item item = itemRepository.findById(itemId)
                 .orElseThrow(() -> new RuntimeException("Item not found"));
 
         return item.getStockQuantity();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,271 @@
+package com.example.shoppingwebsite.service;
+
+import com.example.shoppingwebsite.model.Item;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Prefix trie over item names for type-ahead suggestions.
+ * <p>
+ * Each name is inserted once as a whole and once from every later word, so
+ * "con" also suggests "Gaming Console". Children are kept in sorted parallel
+ * arrays rather than maps, and every node caches its best {@link #MAX_RESULTS}
+ * completions by weight, so a lookup is a walk down the prefix plus a copy of
+ * that cached list. Inserts and removals only recompute the caches along the
+ * touched path.
+ */
+public class SuggestionTrie {
+
+    public static final int MAX_RESULTS = 10;
+
+    public record Suggestion(Long id, String name, int weight) {
+    }
+
+    private static final Suggestion[] NONE = new Suggestion[0];
+
+    private static final class Node {
+        char[] labels = new char[0];
+        Node[] children = new Node[0];
+        Suggestion[] terminals = NONE;
+        Suggestion[] best = NONE;
+
+        Node child(char c) {
+            int i = Arrays.binarySearch(labels, c);
+            return i >= 0 ? children[i] : null;
+        }
+
+        Node addChild(char c) {
+            int i = Arrays.binarySearch(labels, c);
+            if (i >= 0) {
+                return children[i];
+            }
+            int at = -i - 1;
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, at);
+            System.arraycopy(children, 0, newChildren, 0, at);
+            newLabels[at] = c;
+            newChildren[at] = new Node();
+            System.arraycopy(labels, at, newLabels, at + 1, labels.length - at);
+            System.arraycopy(children, at, newChildren, at + 1, children.length - at);
+            labels = newLabels;
+            children = newChildren;
+            return newChildren[at];
+        }
+
+        void removeChild(char c) {
+            int at = Arrays.binarySearch(labels, c);
+            if (at < 0) {
+                return;
+            }
+            char[] newLabels = new char[labels.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(labels, 0, newLabels, 0, at);
+            System.arraycopy(children, 0, newChildren, 0, at);
+            System.arraycopy(labels, at + 1, newLabels, at, labels.length - at - 1);
+            System.arraycopy(children, at + 1, newChildren, at, children.length - at - 1);
+            labels = newLabels;
+            children = newChildren;
+        }
+
+        boolean isEmpty() {
+            return terminals.length == 0 && children.length == 0;
+        }
+    }
+
+    private final Node root = new Node();
+    private final Map<Long, Suggestion> entries = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void rebuild(Collection<Item> items) {
+        lock.writeLock().lock();
+        try {
+            for (Long id : new ArrayList<>(entries.keySet())) {
+                unindex(id);
+            }
+            items.forEach(this::index);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(Item item) {
+        lock.writeLock().lock();
+        try {
+            unindex(item.getId());
+            index(item);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Changes an indexed item's weight in place: its nodes stay, only the
+     * cached completions along its keys are re-ranked.
+     */
+    public void updateWeight(Long itemId, int weight) {
+        lock.writeLock().lock();
+        try {
+            Suggestion old = entries.get(itemId);
+            if (old == null || old.weight() == weight) {
+                return;
+            }
+            Suggestion updated = new Suggestion(itemId, old.name(), weight);
+            entries.put(itemId, updated);
+            for (String key : keys(old.name())) {
+                Node[] path = new Node[key.length() + 1];
+                path[0] = root;
+                for (int i = 0; i < key.length(); i++) {
+                    path[i + 1] = path[i].child(key.charAt(i));
+                }
+                Node leaf = path[key.length()];
+                leaf.terminals = withEntry(withoutEntry(leaf.terminals, itemId), updated);
+                for (int i = key.length(); i >= 0; i--) {
+                    recomputeBest(path[i]);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long itemId) {
+        lock.writeLock().lock();
+        try {
+            unindex(itemId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.child(key.charAt(i));
+            }
+            if (node == null) {
+                return List.of();
+            }
+            return List.of(Arrays.copyOf(node.best, Math.min(limit, node.best.length)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void index(Item item) {
+        if (item.getName() == null || item.getName().isBlank()) {
+            return;
+        }
+        Suggestion suggestion = new Suggestion(item.getId(), item.getName(), item.getStockQuantity());
+        entries.put(item.getId(), suggestion);
+        for (String key : keys(item.getName())) {
+            insert(key, suggestion);
+        }
+    }
+
+    private void unindex(Long itemId) {
+        Suggestion suggestion = entries.remove(itemId);
+        if (suggestion == null) {
+            return;
+        }
+        for (String key : keys(suggestion.name())) {
+            delete(key, itemId);
+        }
+    }
+
+    private void insert(String key, Suggestion suggestion) {
+        Node[] path = new Node[key.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < key.length(); i++) {
+            path[i + 1] = path[i].addChild(key.charAt(i));
+        }
+        Node leaf = path[key.length()];
+        leaf.terminals = withEntry(leaf.terminals, suggestion);
+        for (int i = key.length(); i >= 0; i--) {
+            recomputeBest(path[i]);
+        }
+    }
+
+    private void delete(String key, Long itemId) {
+        Node[] path = new Node[key.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < key.length(); i++) {
+            path[i + 1] = path[i].child(key.charAt(i));
+            if (path[i + 1] == null) {
+                return;
+            }
+        }
+        Node leaf = path[key.length()];
+        leaf.terminals = withoutEntry(leaf.terminals, itemId);
+        for (int i = key.length(); i >= 0; i--) {
+            if (i > 0 && path[i].isEmpty()) {
+                path[i - 1].removeChild(key.charAt(i - 1));
+            } else {
+                recomputeBest(path[i]);
+            }
+        }
+    }
+
+    private static void recomputeBest(Node node) {
+        List<Suggestion> candidates = new ArrayList<>(Arrays.asList(node.terminals));
+        for (Node child : node.children) {
+            candidates.addAll(Arrays.asList(child.best));
+        }
+        candidates.sort((a, b) -> a.weight() != b.weight()
+                ? Integer.compare(b.weight(), a.weight())
+                : a.id().compareTo(b.id()));
+        List<Suggestion> best = new ArrayList<>(MAX_RESULTS);
+        Set<Long> seen = new HashSet<>();
+        for (Suggestion candidate : candidates) {
+            if (seen.add(candidate.id())) {
+                best.add(candidate);
+                if (best.size() == MAX_RESULTS) {
+                    break;
+                }
+            }
+        }
+        node.best = best.toArray(NONE);
+    }
+
+    private static Suggestion[] withEntry(Suggestion[] entries, Suggestion entry) {
+        Suggestion[] result = Arrays.copyOf(entries, entries.length + 1);
+        result[entries.length] = entry;
+        return result;
+    }
+
+    private static Suggestion[] withoutEntry(Suggestion[] entries, Long itemId) {
+        return Arrays.stream(entries).filter(s -> !s.id().equals(itemId)).toArray(Suggestion[]::new);
+    }
+
+    private static Set<String> keys(String name) {
+        String normalized = normalize(name);
+        Set<String> keys = new HashSet<>();
+        keys.add(normalized);
+        for (int i = 1; i < normalized.length(); i++) {
+            if (normalized.charAt(i - 1) == ' ') {
+                keys.add(normalized.substring(i));
+            }
+        }
+        return keys;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.shoppingwebsite.service;
 
+import com.example.shoppingwebsite.dto.UserProfileDTO;
 import com.example.shoppingwebsite.model.Cart;
+import com.example.shoppingwebsite.model.Role;
 import com.example.shoppingwebsite.model.User;
 import com.example.shoppingwebsite.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,8 +13,8 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 public class UserService implements UserDetailsService {
@@ -20,6 +22,15 @@ public class UserService implements UserDetailsService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private CartStore cartStore;
+
+    @Autowired
+    private FavoriteService favoriteService;
+
+    @Autowired
+    private OrderHistoryService orderHistoryService;
+
     @Autowired
     public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
         this.userRepository = userRepository;
@@ -32,6 +43,8 @@ public class UserService implements UserDetailsService {
             throw new RuntimeException("Email already registered");
         }
         user.setPassword(passwordEncoder.encode(user.getPassword()));
+        // The request body must not be able to pick its own role.
+        user.setRole(Role.USER);
 
         // Create a new Cart if the user doesn't already have one
         if (user.getCart() == null) {
@@ -53,7 +66,7 @@ public class UserService implements UserDetailsService {
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
 
         return new org.springframework.security.core.userdetails.User(user.getEmail(), user.getPassword(),
-                new ArrayList<>());
+                user.getAuthorities());
     }
 
     public User getUserProfile(String email) {
@@ -61,6 +74,23 @@ public class UserService implements UserDetailsService {
                 .orElseThrow(() -> new RuntimeException("User not found"));
     }
 
+    /**
+     * The profile response, read with favorites and their items in one query.
+     */
+    public UserProfileDTO getProfileDTO(String email) {
+        User user = userRepository.findProfileByEmail(email)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        return convertToProfileDTO(user);
+    }
+
+    private UserProfileDTO convertToProfileDTO(User user) {
+        return new UserProfileDTO(user.getId(), user.getFirstName(), user.getLastName(), user.getEmail(),
+                user.getPhone(), user.getCountry(), user.getCity(),
+                user.getFavoriteItems().stream()
+                        .map(favoriteService::convertToDTO)
+                        .collect(Collectors.toList()));
+    }
+
     public User updateUserProfile(String email, User updatedUser) {
         User user = getUserProfile(email);
         user.setFirstName(updatedUser.getFirstName());
@@ -74,7 +104,8 @@ public class UserService implements UserDetailsService {
     @Transactional
     public void deleteUser(String email) {
         User user = getUserProfile(email);
-
+        cartStore.invalidate(email);
+        orderHistoryService.deleteHistory(user.getId());
 
         if (user.getCart() != null) {
             user.getCart().getItems().clear();
@@ -89,7 +120,7 @@ public class UserService implements UserDetailsService {
         return new org.springframework.security.core.userdetails.User(
                 user.getEmail(),
                 user.getPassword(),
-                new ArrayList<>()
+                user.getAuthorities()
         );
     }
 }
@@ -1,14 +1,16 @@
-INSERT INTO items (name, description, image_url, price, stock_quantity) VALUES
-('Laptop', 'High-performance laptop', 'https://cdn.mos.cms.futurecdn.net/RXm32coSAR3Lk5omGkmwu6-320-80.jpg', 999.99, 10),
-('Smartphone', 'Latest model smartphone', 'https://cdn.dxomark.com/wp-content/uploads/medias/post-157904/Apple-iPhone-15_-blue_featured-image-packshot-review.jpg', 699.99, 20),
-('Headphones', 'Noise-cancelling headphones', 'https://cdn.mos.cms.futurecdn.net/fsDKHB3ZyNJK6zMpDDBenB-1200-80.jpg', 199.99, 30),
-('Tablet', '10-inch tablet', 'https://cdn.mos.cms.futurecdn.net/3Y5PQVLsQTK6K5n2Q3mdWS-1200-80.jpg', 299.99, 15),
-('Smartwatch', 'Fitness tracking smartwatch', 'https://encrypted-tbn0.gstatic.com/images?q=tbn:ANd9GcQHSepjL4INhsNJOzPhoDfPXlSUGxGH_Ps-hw&s', 149.99, 25),
-('Camera', 'Digital SLR camera', 'https://img.freepik.com/free-photo/camera-equipment-capturing-single-macro-object-generative-ai_188544-12096.jpg?size=338&ext=jpg&ga=GA1.1.2008272138.1720569600&semt=ais_hybrid', 799.99, 5),
-('Speaker', 'Bluetooth speaker', 'https://cdn.store-assets.com/s/273607/i/42396432.jpg?width=480', 79.99, 40),
-('Gaming Console', 'Next-gen gaming console', 'https://upload.wikimedia.org/wikipedia/commons/thumb/1/14/Wii-console.jpg/600px-Wii-console.jpg', 499.99, 8),
-('Printer', 'All-in-one printer', 'https://i1.adis.ws/i/canon/pixma-pro-10-frt_3d381774a9aa4a089ef00eb881acbb8a?$block-hero-header-3by2-dt-jpg$', 129.99, 12),
-('External Hard Drive', '1TB external hard drive', 'https://5.imimg.com/data5/WY/AF/MF/SELLER-43867843/internal-hard-drive-disk-500x500.jpg', 59.99, 50);
+INSERT INTO items (id, name, description, image_url, price, stock_quantity, version) VALUES
+(1, 'Laptop', 'High-performance laptop', 'https://cdn.mos.cms.futurecdn.net/RXm32coSAR3Lk5omGkmwu6-320-80.jpg', 999.99, 10, 0),
+(2, 'Smartphone', 'Latest model smartphone', 'https://cdn.dxomark.com/wp-content/uploads/medias/post-157904/Apple-iPhone-15_-blue_featured-image-packshot-review.jpg', 699.99, 20, 0),
+(3, 'Headphones', 'Noise-cancelling headphones', 'https://cdn.mos.cms.futurecdn.net/fsDKHB3ZyNJK6zMpDDBenB-1200-80.jpg', 199.99, 30, 0),
+(4, 'Tablet', '10-inch tablet', 'https://cdn.mos.cms.futurecdn.net/3Y5PQVLsQTK6K5n2Q3mdWS-1200-80.jpg', 299.99, 15, 0),
+(5, 'Smartwatch', 'Fitness tracking smartwatch', 'https://encrypted-tbn0.gstatic.com/images?q=tbn:ANd9GcQHSepjL4INhsNJOzPhoDfPXlSUGxGH_Ps-hw&s', 149.99, 25, 0),
+(6, 'Camera', 'Digital SLR camera', 'https://img.freepik.com/free-photo/camera-equipment-capturing-single-macro-object-generative-ai_188544-12096.jpg?size=338&ext=jpg&ga=GA1.1.2008272138.1720569600&semt=ais_hybrid', 799.99, 5, 0),
+(7, 'Speaker', 'Bluetooth speaker', 'https://cdn.store-assets.com/s/273607/i/42396432.jpg?width=480', 79.99, 40, 0),
+(8, 'Gaming Console', 'Next-gen gaming console', 'https://upload.wikimedia.org/wikipedia/commons/thumb/1/14/Wii-console.jpg/600px-Wii-console.jpg', 499.99, 8, 0),
+(9, 'Printer', 'All-in-one printer', 'https://i1.adis.ws/i/canon/pixma-pro-10-frt_3d381774a9aa4a089ef00eb881acbb8a?$block-hero-header-3by2-dt-jpg$', 129.99, 12, 0),
+(10, 'External Hard Drive', '1TB external hard drive', 'https://5.imimg.com/data5/WY/AF/MF/SELLER-43867843/internal-hard-drive-disk-500x500.jpg', 59.99, 50, 0);
 
-INSERT INTO users (email, password, first_name, last_name)
-VALUES ('user@example.com', '$2a$10$dXJ3SW6G7P50lGmMkkmwe.20cQQubK3.HZWzG3YB1tlRy.fqvM/BG', 'Test', 'User');
\ No newline at end of file
+ALTER SEQUENCE items_seq RESTART WITH 11;
+
+INSERT INTO users (email, password, first_name, last_name, role)
+VALUES ('user@example.com', '$2a$10$dXJ3SW6G7P50lGmMkkmwe.20cQQubK3.HZWzG3YB1tlRy.fqvM/BG', 'Test', 'User', 'USER');
\ No newline at end of file
@@ -0,0 +1,90 @@
+package com.example.shoppingwebsite.controller;
+
+import com.example.shoppingwebsite.model.Item;
+import com.example.shoppingwebsite.service.ItemService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ItemControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Test
+    void matchingETagGetsNotModified() throws Exception {
+        String etag = etagOf("/api/items", null);
+
+        mockMvc.perform(get("/api/items").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+    }
+
+    @Test
+    void gzipAndIdentityBodiesHaveDifferentETags() throws Exception {
+        String identity = etagOf("/api/items/2", null);
+        String gzip = etagOf("/api/items/2", "gzip, deflate");
+
+        assertNotEquals(identity, gzip);
+        assertEquals(identity.substring(0, identity.length() - 1) + "-gzip\"", gzip);
+        mockMvc.perform(get("/api/items/2").header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                        .header(HttpHeaders.IF_NONE_MATCH, identity))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"));
+        mockMvc.perform(get("/api/items/2").header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                        .header(HttpHeaders.IF_NONE_MATCH, gzip))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void itemETagFollowsTheItemsOwnVersion() throws Exception {
+        String etag = etagOf("/api/items/5", null);
+
+        Item other = itemService.getItemById(6L).orElseThrow();
+        other.setStockQuantity(other.getStockQuantity() + 1);
+        Long otherVersion = itemService.saveItem(other).getVersion();
+        awaitCatalogVersion(6L, otherVersion);
+        mockMvc.perform(get("/api/items/5").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        Item item = itemService.getItemById(5L).orElseThrow();
+        item.setStockQuantity(item.getStockQuantity() + 1);
+        Long version = itemService.saveItem(item).getVersion();
+        awaitCatalogVersion(5L, version);
+        mockMvc.perform(get("/api/items/5").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"item-5-" + version + "\""));
+    }
+
+    private String etagOf(String path, String acceptEncoding) throws Exception {
+        var request = get(path);
+        if (acceptEncoding != null) {
+            request.header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        return mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    // The catalog picks up saved items on its refresher thread.
+    private void awaitCatalogVersion(Long itemId, Long version) throws InterruptedException {
+        for (int i = 0; i < 100 && !version.equals(itemService.getItemById(itemId).orElseThrow().getVersion()); i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(version, itemService.getItemById(itemId).orElseThrow().getVersion());
+    }
+}
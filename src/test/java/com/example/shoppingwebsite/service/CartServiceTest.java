@@ -0,0 +1,73 @@
+package com.example.shoppingwebsite.service;
+
+import com.example.shoppingwebsite.dto.CartDTO;
+import com.example.shoppingwebsite.dto.CartOperation;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class CartServiceTest {
+
+    private static final String EMAIL = "carttotals@example.com";
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void everyEditKeepsTheStoredTotalsInLineWithTheLines() {
+        jdbcTemplate.update("INSERT INTO users (email, password, first_name, last_name, role) " +
+                "VALUES (?, 'x', 'Test', 'User', 'USER')", EMAIL);
+
+        cartService.addToCart(EMAIL, 1L, 2);
+        cartService.addToCart(EMAIL, 1L, 1);
+        cartService.addToCart(EMAIL, 2L, 1);
+        assertTotals(4);
+
+        cartService.updateCartItem(EMAIL, 1L, 1);
+        assertTotals(2);
+
+        cartService.applyOperations(EMAIL, List.of(
+                operation(CartOperation.Type.ADD, 3L, 2),
+                operation(CartOperation.Type.UPDATE, 2L, 3),
+                operation(CartOperation.Type.REMOVE, 1L, null)));
+        assertTotals(5);
+
+        cartService.removeCartItem(EMAIL, 3L);
+        cartService.removeCartItem(EMAIL, 3L);
+        assertTotals(3);
+
+        cartService.clearCart(EMAIL);
+        assertTotals(0);
+    }
+
+    private void assertTotals(int itemCount) {
+        CartDTO cart = cartService.getCartForUser(EMAIL);
+        BigDecimal expected = cart.getItems().stream()
+                .map(line -> itemService.getItemById(line.getItemId()).orElseThrow().getPrice()
+                        .multiply(BigDecimal.valueOf(line.getQuantity())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(itemCount, cart.getItemCount());
+        assertEquals(0, expected.compareTo(cart.getTotalPrice()), "total " + cart.getTotalPrice());
+    }
+
+    private static CartOperation operation(CartOperation.Type type, Long itemId, Integer quantity) {
+        CartOperation operation = new CartOperation();
+        operation.setOp(type);
+        operation.setItemId(itemId);
+        operation.setQuantity(quantity);
+        return operation;
+    }
+}
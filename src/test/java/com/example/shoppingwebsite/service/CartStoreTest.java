@@ -0,0 +1,104 @@
+package com.example.shoppingwebsite.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Own database and second-level cache regions: the JCache provider is shared
+// by every test context in the JVM.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:cartstoretest",
+        "spring.jpa.properties.hibernate.cache.region_prefix=cartstoretest",
+        "spring.jpa.properties.hibernate.javax.cache.missing_cache_strategy=create",
+        "cart.store.write-back.enabled=true",
+        "cart.store.flush-interval-ms=3600000"
+})
+class CartStoreTest {
+
+    private static final String EMAIL = "user@example.com";
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CartStore cartStore;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void cartEditsStayInMemoryUntilFlushed() {
+        cartService.addToCart(EMAIL, 9L, 2);
+        cartService.addToCart(EMAIL, 9L, 1);
+        cartService.addToCart(EMAIL, 10L, 1);
+        assertEquals(Map.of(9L, 3, 10L, 1), cartStore.getLines(EMAIL));
+        assertEquals(0, storedCartLines(EMAIL));
+
+        cartStore.flush(EMAIL);
+        assertEquals(2, storedCartLines(EMAIL));
+
+        cartStore.update(EMAIL, Map::clear);
+        cartStore.flushDirty();
+        assertEquals(0, storedCartLines(EMAIL));
+    }
+
+    @Test
+    void aCartThatCannotBeWrittenDoesNotHoldBackTheOthers() {
+        String broken = createUser("broken@example.com");
+        String healthy = createUser("healthy@example.com");
+        // No such item, so the broken cart's insert violates the foreign key.
+        cartStore.update(broken, lines -> lines.put(999_999L, 1));
+        cartStore.update(healthy, lines -> lines.put(3L, 1));
+
+        cartStore.flushDirty();
+
+        assertEquals(1, storedCartLines(healthy));
+        assertEquals(0, storedCartLines(broken));
+        assertEquals(Map.of(999_999L, 1), cartStore.getLines(broken));
+
+        cartStore.update(broken, Map::clear);
+        cartStore.flushDirty();
+    }
+
+    @Test
+    void leastRecentlyUsedCartsAreWrittenBackWhenTheStoreIsFull() throws InterruptedException {
+        String first = createUser("first@example.com");
+        String second = createUser("second@example.com");
+        int maxCarts = (int) ReflectionTestUtils.getField(cartStore, "maxCarts");
+        ReflectionTestUtils.setField(cartStore, "maxCarts", 1);
+        try {
+            cartStore.update(first, lines -> lines.put(4L, 1));
+            cartStore.update(second, lines -> lines.put(5L, 2));
+
+            Map<?, ?> carts = (Map<?, ?>) ReflectionTestUtils.getField(cartStore, "carts");
+            for (int i = 0; i < 100 && carts.containsKey(first); i++) {
+                Thread.sleep(50);
+            }
+            assertFalse(carts.containsKey(first));
+            assertTrue(carts.containsKey(second));
+            assertEquals(1, storedCartLines(first));
+            assertEquals(Map.of(4L, 1), cartStore.getLines(first));
+        } finally {
+            ReflectionTestUtils.setField(cartStore, "maxCarts", maxCarts);
+        }
+    }
+
+    private String createUser(String email) {
+        jdbcTemplate.update("INSERT INTO users (email, password, first_name, last_name, role) " +
+                "VALUES (?, 'x', 'Test', 'User', 'USER')", email);
+        return email;
+    }
+
+    private int storedCartLines(String email) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM cart_item ci JOIN cart c ON c.id = ci.cart_id " +
+                "JOIN users u ON u.id = c.user_id WHERE u.email = ?", Integer.class, email);
+    }
+}
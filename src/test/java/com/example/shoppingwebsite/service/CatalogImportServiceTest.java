@@ -0,0 +1,131 @@
+package com.example.shoppingwebsite.service;
+
+import com.example.shoppingwebsite.dto.CatalogImportReport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Own database and second-level cache regions: the JCache provider is shared
+// by every test context in the JVM.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:catalogimporttest",
+        "spring.jpa.properties.hibernate.cache.region_prefix=catalogimporttest",
+        "spring.jpa.properties.hibernate.javax.cache.missing_cache_strategy=create",
+        "catalog.import.chunk-size=2"
+})
+class CatalogImportServiceTest {
+
+    @Autowired
+    private CatalogImportService catalogImportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void splitCsvHandlesQuotedFields() {
+        assertEquals(List.of("1", "Mouse", ""), CatalogImportService.splitCsv("1,Mouse,"));
+        assertEquals(List.of("Desk, oak", "12.50"), CatalogImportService.splitCsv("\"Desk, oak\",12.50"));
+        assertEquals(List.of("The \"best\" lamp", "x"), CatalogImportService.splitCsv("\"The \"\"best\"\" lamp\",x"));
+        assertEquals(List.of(""), CatalogImportService.splitCsv(""));
+    }
+
+    @Test
+    void splitCsvRejectsAnUnterminatedQuote() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> CatalogImportService.splitCsv("\"Desk, oak,12.50"));
+        assertEquals("Unterminated quoted field", e.getMessage());
+    }
+
+    @Test
+    void headerMustNameKnownColumnsIncludingNameAndPrice() {
+        IllegalArgumentException unknown = assertThrows(IllegalArgumentException.class,
+                () -> importCsv("name,price,colour\n"));
+        assertEquals("Unknown CSV column: colour", unknown.getMessage());
+
+        IllegalArgumentException missing = assertThrows(IllegalArgumentException.class,
+                () -> importCsv("name,stock_quantity\n"));
+        assertEquals("CSV header is missing column: price", missing.getMessage());
+
+        assertThrows(IllegalArgumentException.class, () -> importCsv(""));
+    }
+
+    @Test
+    void rowsWithAnIdUpdateAndRowsWithoutOneInsert() throws IOException {
+        long itemsBefore = count();
+
+        CatalogImportReport report = importCsv("""
+                id,name,description,price,stock_quantity
+                4,"Desk Lamp, LED",Bright,19.99,12
+                ,Import Test Mug,"A ""large"" mug",7.50,30
+                ,Import Test Plate,,3.25,
+                """);
+
+        assertEquals(3, report.getRowsRead());
+        assertEquals(1, report.getRowsUpdated());
+        assertEquals(2, report.getRowsInserted());
+        assertEquals(0, report.getRowsRejected());
+        assertEquals(itemsBefore + 2, count());
+
+        Map<String, Object> updated = jdbcTemplate.queryForMap(
+                "SELECT name, description, price, stock_quantity FROM items WHERE id = 4");
+        assertEquals("Desk Lamp, LED", updated.get("NAME"));
+        assertEquals("Bright", updated.get("DESCRIPTION"));
+        assertEquals(0, new BigDecimal("19.99").compareTo((BigDecimal) updated.get("PRICE")));
+        assertEquals(12, ((Number) updated.get("STOCK_QUANTITY")).intValue());
+
+        assertEquals("A \"large\" mug", jdbcTemplate.queryForObject(
+                "SELECT description FROM items WHERE name = 'Import Test Mug'", String.class));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT stock_quantity FROM items WHERE name = 'Import Test Plate'", Integer.class));
+    }
+
+    @Test
+    void unknownIdsAndInvalidRowsAreRejectedWithoutStoppingTheImport() throws IOException {
+        long itemsBefore = count();
+
+        CatalogImportReport report = importCsv("""
+                id,name,price
+                999999,Ghost,1.00
+                ,No Price,
+                ,"Broken,2.00
+                ,Import Test Bowl,4.00
+                """);
+
+        assertEquals(4, report.getRowsRead());
+        assertEquals(1, report.getRowsInserted());
+        assertEquals(0, report.getRowsUpdated());
+        assertEquals(3, report.getRowsRejected());
+        assertEquals(itemsBefore + 1, count());
+
+        List<CatalogImportReport.RejectedRow> rejected = report.getRejected();
+        assertEquals(3, rejected.size());
+        assertTrue(rejected.stream().anyMatch(row ->
+                row.getLine() == 2 && row.getReason().equals("Unknown item id 999999")));
+        assertTrue(rejected.stream().anyMatch(row ->
+                row.getLine() == 3 && row.getReason().equals("Price is required")));
+        assertTrue(rejected.stream().anyMatch(row ->
+                row.getLine() == 4 && row.getReason().equals("Unterminated quoted field")));
+    }
+
+    private CatalogImportReport importCsv(String csv) throws IOException {
+        InputStream input = new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+        return catalogImportService.importItems(input, CatalogImportService.Format.CSV);
+    }
+
+    private long count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM items", Long.class);
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.shoppingwebsite.service;
+
+import com.example.shoppingwebsite.dto.OrderDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+// Own database and second-level cache regions: the JCache provider is shared
+// by every test context in the JVM. The long max-wait puts every order a test
+// submits into the same batch.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:pipelinetest",
+        "spring.jpa.properties.hibernate.cache.region_prefix=pipelinetest",
+        "spring.jpa.properties.hibernate.javax.cache.missing_cache_strategy=create",
+        "checkout.pipeline.enabled=true",
+        "checkout.pipeline.max-wait=500ms"
+})
+class CheckoutPipelineTest {
+
+    @Autowired
+    private CheckoutPipeline checkoutPipeline;
+
+    @SpyBean
+    private OrderService orderService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void batchIsClosedInOneTransaction() throws Exception {
+        int stock = stockService.getStockQuantity(1L);
+        List<OrderDTO> orders = List.of(orderFor("batch1@example.com", 1L), orderFor("batch2@example.com", 1L));
+        clearInvocations(orderService);
+
+        CompletableFuture<OrderDTO> first = checkoutPipeline.submit(orders.get(0).getId(), "batch1@example.com");
+        CompletableFuture<OrderDTO> second = checkoutPipeline.submit(orders.get(1).getId(), "batch2@example.com");
+
+        assertEquals("CLOSED", first.get(10, TimeUnit.SECONDS).getStatus());
+        assertEquals("CLOSED", second.get(10, TimeUnit.SECONDS).getStatus());
+        verify(orderService, times(2)).closeOrder(any(), anyString());
+        assertEquals(stock - 2, stockService.getStockQuantity(1L));
+    }
+
+    @Test
+    void failingOrderOnlyCostsItsBatchTheGroupCommit() throws Exception {
+        int stock = stockService.getStockQuantity(2L);
+        OrderDTO first = orderFor("fallback1@example.com", 2L);
+        OrderDTO second = orderFor("fallback2@example.com", 2L);
+        OrderDTO third = orderFor("fallback3@example.com", 2L);
+        clearInvocations(orderService);
+
+        CompletableFuture<OrderDTO> closedFirst = checkoutPipeline.submit(first.getId(), "fallback1@example.com");
+        CompletableFuture<OrderDTO> closedSecond = checkoutPipeline.submit(second.getId(), "fallback2@example.com");
+        // Someone else's order: closing it fails and rolls the batch back.
+        CompletableFuture<OrderDTO> foreign = checkoutPipeline.submit(third.getId(), "fallback1@example.com");
+
+        assertEquals("CLOSED", closedFirst.get(10, TimeUnit.SECONDS).getStatus());
+        assertEquals("CLOSED", closedSecond.get(10, TimeUnit.SECONDS).getStatus());
+        ExecutionException e = assertThrows(ExecutionException.class, () -> foreign.get(10, TimeUnit.SECONDS));
+        assertEquals(RuntimeException.class, e.getCause().getClass());
+        // Three attempts in the batch, then three one by one.
+        verify(orderService, times(6)).closeOrder(any(), anyString());
+        assertEquals(stock - 2, stockService.getStockQuantity(2L));
+    }
+
+    @Test
+    void submitFailsWhenThePipelineIsDisabled() {
+        CheckoutPipeline disabled = new CheckoutPipeline(mock(PlatformTransactionManager.class));
+
+        assertThrows(IllegalStateException.class, () -> disabled.submit(1L, "user@example.com"));
+    }
+
+    private OrderDTO orderFor(String email, Long itemId) {
+        jdbcTemplate.update("INSERT INTO users (email, password, first_name, last_name, role) " +
+                "VALUES (?, 'x', 'Test', 'User', 'USER')", email);
+        cartService.addToCart(email, itemId, 1);
+        return orderService.createOrderFromCart(email);
+    }
+}
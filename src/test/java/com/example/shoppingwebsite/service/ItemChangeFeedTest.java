@@ -0,0 +1,156 @@
+package com.example.shoppingwebsite.service;
+
+import com.example.shoppingwebsite.dto.ItemChange;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class ItemChangeFeedTest {
+
+    private final Queue<RecordingEmitter> emitters = new ArrayDeque<>();
+    private ItemChangeFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        feed = new ItemChangeFeed() {
+            @Override
+            SseEmitter newEmitter() {
+                return emitters.remove();
+            }
+        };
+        // Subscribers get no initial snapshot: the mocked catalog knows no items.
+        ReflectionTestUtils.setField(feed, "itemService", mock(ItemService.class));
+        ReflectionTestUtils.setField(feed, "timeout", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(feed, "maxSendTime", Duration.ofSeconds(2));
+    }
+
+    @AfterEach
+    void tearDown() {
+        feed.shutdown();
+    }
+
+    @Test
+    void changesToAnItemCoalesceWhileTheSubscriberIsBusy() throws Exception {
+        RecordingEmitter client = new RecordingEmitter(true);
+        emitters.add(client);
+        feed.subscribe(List.of(1L, 2L));
+
+        publish(change(1L, "10.00"), change(1L, "11.00"), change(2L, "5.00"));
+        feed.dispatch();
+        await(() -> client.sendsStarted == 1);
+
+        // The first batch is still being written; these pile up as one value per item.
+        publish(change(1L, "12.00"));
+        publish(change(1L, "13.00"), change(2L, "6.00"));
+        feed.dispatch();
+        client.release.countDown();
+        // The sender queues the subscriber again once its first batch is out.
+        await(() -> {
+            feed.dispatch();
+            return client.batches.size() == 2;
+        });
+
+        assertEquals(List.of("11.00", "5.00"), prices(client.batches.get(0)));
+        assertEquals(List.of("13.00", "6.00"), prices(client.batches.get(1)));
+    }
+
+    @Test
+    void aSubscriberStuckInASendIsDroppedWithoutHoldingUpOthers() throws Exception {
+        ReflectionTestUtils.setField(feed, "maxSendTime", Duration.ofMillis(100));
+        RecordingEmitter stalled = new RecordingEmitter(true);
+        RecordingEmitter healthy = new RecordingEmitter(false);
+        emitters.add(stalled);
+        emitters.add(healthy);
+        feed.subscribe(List.of(1L));
+        feed.subscribe(List.of(1L));
+
+        publish(change(1L, "10.00"));
+        feed.dispatch();
+        await(() -> stalled.sendsStarted == 1 && healthy.batches.size() == 1);
+
+        Thread.sleep(150);
+        publish(change(1L, "11.00"));
+        feed.dispatch();
+
+        assertEquals(1, feed.getSubscriberCount());
+        await(() -> healthy.batches.size() == 2);
+        assertEquals(List.of("11.00"), prices(healthy.batches.get(1)));
+        // The emitter is closed by its own sender once the blocked write returns.
+        assertFalse(stalled.completed);
+        stalled.release.countDown();
+        await(() -> stalled.completed);
+        assertEquals(1, stalled.sendsStarted);
+    }
+
+    private void publish(ItemChange... changes) {
+        feed.onItemDeltas(new ItemDeltasEvent(List.of(changes), List.of()));
+    }
+
+    private static ItemChange change(Long itemId, String price) {
+        return new ItemChange(itemId, new BigDecimal(price), 1, false);
+    }
+
+    private static List<String> prices(List<ItemChange> batch) {
+        return batch.stream()
+                .sorted(Comparator.comparing(ItemChange::getItemId))
+                .map(change -> change.getPrice().toPlainString())
+                .toList();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 100 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(20);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final List<List<ItemChange>> batches = new CopyOnWriteArrayList<>();
+        private final CountDownLatch release;
+        private volatile int sendsStarted;
+        private volatile boolean completed;
+
+        private RecordingEmitter(boolean blockFirstSend) {
+            this.release = new CountDownLatch(blockFirstSend ? 1 : 0);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void send(SseEventBuilder builder) {
+            sendsStarted++;
+            try {
+                // Stands in for a client whose socket buffer is full.
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            builder.build().stream()
+                    .filter(part -> part.getData() instanceof List)
+                    .forEach(part -> batches.add((List<ItemChange>) part.getData()));
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+}
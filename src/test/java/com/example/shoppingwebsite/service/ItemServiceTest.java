@@ -0,0 +1,58 @@
+package com.example.shoppingwebsite.service;
+
+import com.example.shoppingwebsite.dto.CatalogItem;
+import com.example.shoppingwebsite.model.Item;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class ItemServiceTest {
+
+    @Autowired
+    private ItemService itemService;
+
+    @Test
+    void readersGetTheirOwnCopies() {
+        Item item = itemService.getItemById(1L).orElseThrow();
+        item.setName("Changed by a reader");
+
+        assertNotEquals("Changed by a reader", itemService.getItemById(1L).orElseThrow().getName());
+        assertNotEquals("Changed by a reader", itemService.getItemsByIds(List.of(1L)).get(0).getName());
+    }
+
+    @Test
+    void stockChangePatchesTheSnapshotAndKeepsTheItemSearchable() throws InterruptedException {
+        CatalogSnapshot before = itemService.getCatalogSnapshot();
+        Item item = itemService.getItemById(10L).orElseThrow();
+        item.setStockQuantity(item.getStockQuantity() + 5);
+
+        itemService.saveItem(item);
+
+        CatalogSnapshot after = itemService.getCatalogSnapshot();
+        for (int i = 0; i < 100 && stockOf(after, 10L) != item.getStockQuantity(); i++) {
+            Thread.sleep(20);
+            after = itemService.getCatalogSnapshot();
+        }
+        assertEquals(item.getStockQuantity(), stockOf(after, 10L));
+        assertTrue(after.getVersion() > before.getVersion());
+        // Entries of unchanged items are carried over, not rebuilt.
+        assertSame(before.getItems().get(0), after.getItems().get(0));
+        assertEquals(List.of(10L), itemService.searchItems(item.getName()).stream().map(Item::getId).toList());
+    }
+
+    private static int stockOf(CatalogSnapshot snapshot, Long itemId) {
+        return snapshot.getItems().stream()
+                .filter(item -> item.getId().equals(itemId))
+                .mapToInt(CatalogItem::getStockQuantity)
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.shoppingwebsite.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Own database and second-level cache regions: the JCache provider is shared
+// by every test context in the JVM.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:orderhistorytest",
+        "spring.jpa.properties.hibernate.cache.region_prefix=orderhistorytest",
+        "spring.jpa.properties.hibernate.javax.cache.missing_cache_strategy=create"
+})
+class OrderHistoryBackfillRunnerTest {
+
+    @Autowired
+    private OrderHistoryBackfillRunner runner;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void closedOrdersWithoutHistoryAreBackfilled() {
+        Long userId = insertUser("backfill@example.com");
+        for (long id = 910001; id <= 910003; id++) {
+            insertOrder(id, userId, "CLOSED");
+        }
+        insertOrder(910004, userId, "TEMP");
+        insertOrder(910005, userId, "CANCELED");
+
+        runner.run(null);
+        runner.run(null);
+
+        assertEquals(3, historyRows(userId));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM order_history WHERE order_id = 910003", Integer.class));
+    }
+
+    @Test
+    void deletingAUserDeletesTheirHistory() {
+        Long userId = insertUser("leaving@example.com");
+        Long otherId = insertUser("staying@example.com");
+        insertHistory(920001, userId);
+        insertHistory(920002, userId);
+        insertHistory(920003, otherId);
+
+        userService.deleteUser("leaving@example.com");
+
+        assertEquals(0, historyRows(userId));
+        assertEquals(1, historyRows(otherId));
+    }
+
+    private Long insertUser(String email) {
+        jdbcTemplate.update("INSERT INTO users (email, password, first_name, last_name, role) " +
+                "VALUES (?, 'x', 'Test', 'User', 'USER')", email);
+        return jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = ?", Long.class, email);
+    }
+
+    private void insertOrder(long id, Long userId, String status) {
+        jdbcTemplate.update("INSERT INTO orders (id, user_id, order_date, status, total_price, version) " +
+                "VALUES (?, ?, CURRENT_TIMESTAMP, ?, 12.50, 0)", id, userId, status);
+        jdbcTemplate.update("INSERT INTO order_items (order_id, item_id, quantity, price) VALUES (?, 3, 1, 12.50)", id);
+    }
+
+    private void insertHistory(long orderId, Long userId) {
+        jdbcTemplate.update("INSERT INTO order_history (order_id, user_id, order_date, payload) " +
+                "VALUES (?, ?, CURRENT_TIMESTAMP, X'7B7D')", orderId, userId);
+    }
+
+    private int historyRows(Long userId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_history WHERE user_id = ?",
+                Integer.class, userId);
+    }
+}
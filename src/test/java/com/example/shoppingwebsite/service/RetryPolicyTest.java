@@ -0,0 +1,71 @@
+package com.example.shoppingwebsite.service;
+
+import jakarta.persistence.OptimisticLockException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+class RetryPolicyTest {
+
+    private RetryPolicy retryPolicy;
+
+    @BeforeEach
+    void setUp() {
+        retryPolicy = new RetryPolicy(mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(retryPolicy, "maxAttempts", 3);
+        ReflectionTestUtils.setField(retryPolicy, "initialBackoff", Duration.ofMillis(1));
+        ReflectionTestUtils.setField(retryPolicy, "maxBackoff", Duration.ofMillis(1));
+    }
+
+    @Test
+    void retriesLostConcurrentUpdates() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = retryPolicy.inTransaction(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new RuntimeException("flush failed", new OptimisticLockException("stale"));
+            }
+            return "done";
+        });
+
+        assertEquals("done", result);
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void rethrowsTheLastFailureAfterMaxAttempts() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        OptimisticLockingFailureException e = assertThrows(OptimisticLockingFailureException.class,
+                () -> retryPolicy.inTransaction(() -> {
+                    throw new OptimisticLockingFailureException("stale " + attempts.incrementAndGet());
+                }));
+
+        assertEquals(3, attempts.get());
+        assertEquals("stale 3", e.getMessage());
+    }
+
+    @Test
+    void doesNotRetryOtherFailures() {
+        AtomicInteger attempts = new AtomicInteger();
+        IllegalStateException failure = new IllegalStateException("broken");
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> retryPolicy.inTransaction(() -> {
+            attempts.incrementAndGet();
+            throw failure;
+        }));
+
+        assertSame(failure, e);
+        assertEquals(1, attempts.get());
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.shoppingwebsite.service;
+
+import com.example.shoppingwebsite.model.Item;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchIndexTest {
+
+    private SearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new SearchIndex();
+        index.rebuild(List.of(
+                item(1L, "Laptop", "High-performance laptop"),
+                item(2L, "Laptop Stand", "Aluminium stand"),
+                item(3L, "Backpack", "Fits a 15-inch laptop"),
+                item(4L, "Desktop", "Tower PC")));
+    }
+
+    @Test
+    void tokenizesOnNonAlphanumericsAndLowercases() {
+        assertEquals(List.of("high", "performance", "laptop", "15", "inch"),
+                SearchIndex.tokenize("High-performance LAPTOP, 15-inch!"));
+        assertEquals(List.of(), SearchIndex.tokenize("  -- "));
+        assertEquals(List.of(), SearchIndex.tokenize(null));
+    }
+
+    @Test
+    void gramsAreBoundedByGramLength() {
+        assertEquals(Set.of("a", "b", "c", "d", "ab", "bc", "cd", "abc", "bcd"), SearchIndex.grams("abcd"));
+        assertTrue(SearchIndex.grams("x".repeat(1000)).size() <= SearchIndex.GRAM);
+    }
+
+    @Test
+    void ranksWholeTokensBeforePrefixesBeforeInfixesAndNamesBeforeDescriptions() {
+        index.put(item(5L, "Lap Desk", "Cushioned"));
+
+        // 5: whole name token; 1 and 2: name prefix; 3: description prefix.
+        assertEquals(List.of(5L, 1L, 2L, 3L), index.search("lap"));
+        // 1 and 2: whole name token; 3: whole description token.
+        assertEquals(List.of(1L, 2L, 3L), index.search("laptop"));
+        // Name infixes of "laptop" and "desktop" before the description infix.
+        assertEquals(List.of(1L, 2L, 4L, 3L), index.search("top"));
+    }
+
+    @Test
+    void matchesInfixesLongerThanAGram() {
+        assertEquals(List.of(1L, 2L, 3L), index.search("aptop"));
+        assertEquals(List.of(4L), index.search("esktop"));
+        assertEquals(List.of(), index.search("aptopx"));
+    }
+
+    @Test
+    void everyTermMustMatch() {
+        assertEquals(List.of(2L), index.search("laptop stand"));
+        assertEquals(List.of(3L), index.search("laptop inch"));
+        assertEquals(List.of(), index.search("laptop tower"));
+        assertEquals(List.of(), index.search("   "));
+    }
+
+    @Test
+    void putReplacesAnItemsEntriesAndRemoveDropsThem() {
+        index.put(item(4L, "Gaming Desktop", "Tower PC with RGB"));
+        assertEquals(List.of(4L), index.search("gaming"));
+        assertEquals(List.of(4L), index.search("rgb"));
+
+        index.put(item(4L, "Workstation", "Tower PC"));
+        assertEquals(List.of(), index.search("gaming"));
+        assertEquals(List.of(), index.search("rgb"));
+        assertEquals(List.of(4L), index.search("station"));
+
+        index.remove(1L);
+        assertEquals(List.of(2L, 3L), index.search("laptop"));
+        index.remove(2L);
+        index.remove(3L);
+        assertEquals(List.of(), index.search("lap"));
+        assertEquals(List.of(), index.search("aptop"));
+    }
+
+    private static Item item(Long id, String name, String description) {
+        Item item = new Item();
+        item.setId(id);
+        item.setName(name);
+        item.setDescription(description);
+        return item;
+    }
+}
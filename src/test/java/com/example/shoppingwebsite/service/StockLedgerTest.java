@@ -0,0 +1,152 @@
+package com.example.shoppingwebsite.service;
+
+import com.example.shoppingwebsite.model.Item;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Own database and second-level cache regions: the JCache provider is shared
+// by every test context in the JVM.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:ledgertest",
+        "spring.jpa.properties.hibernate.cache.region_prefix=ledgertest",
+        "spring.jpa.properties.hibernate.javax.cache.missing_cache_strategy=create",
+        "stock.ledger.enabled=true",
+        "stock.ledger.flush-interval-ms=3600000"
+})
+class StockLedgerTest {
+
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+
+    @BeforeEach
+    void setUp() {
+        transaction = new TransactionTemplate(transactionManager);
+        stockLedger.flush();
+    }
+
+    @Test
+    void rolledBackDecreaseIsGivenBack() {
+        int before = stockLedger.getStock(1L);
+
+        transaction.executeWithoutResult(status -> {
+            assertTrue(stockLedger.tryDecrease(1L, 3));
+            assertEquals(before - 3, stockLedger.getStock(1L));
+            status.setRollbackOnly();
+        });
+        stockLedger.flush();
+
+        assertEquals(before, stockLedger.getStock(1L));
+        assertEquals(before, storedStock(1L));
+    }
+
+    @Test
+    void committedDecreaseIsWrittenOnFlush() {
+        int before = storedStock(2L);
+
+        transaction.executeWithoutResult(status -> assertTrue(stockLedger.tryDecrease(2L, 4)));
+
+        assertEquals(before - 4, stockLedger.getStock(2L));
+        assertEquals(before, storedStock(2L));
+        stockLedger.flush();
+        assertEquals(before - 4, storedStock(2L));
+        stockLedger.flush();
+        assertEquals(before - 4, storedStock(2L));
+    }
+
+    @Test
+    void everyChangeMovesTheVersionBeforeItIsFlushed() {
+        long version = stockLedger.getVersion();
+
+        transaction.executeWithoutResult(status -> assertTrue(stockLedger.tryDecrease(10L, 1)));
+        assertTrue(stockLedger.getVersion() > version);
+
+        version = stockLedger.getVersion();
+        stockService.increaseStock(10L, 1);
+        assertTrue(stockLedger.getVersion() > version);
+    }
+
+    @Test
+    void decreaseBeyondStockIsRejected() {
+        int before = stockLedger.getStock(3L);
+
+        assertFalse(stockLedger.tryDecrease(3L, before + 1));
+
+        assertEquals(before, stockLedger.getStock(3L));
+    }
+
+    @Test
+    void overwriteReplacesUnflushedDeltas() {
+        transaction.executeWithoutResult(status -> assertTrue(stockLedger.tryDecrease(4L, 2)));
+
+        Item item = new Item(itemService.getItemById(4L).orElseThrow());
+        item.setVersion(null);
+        item.setStockQuantity(40);
+        itemService.saveItem(item);
+
+        assertEquals(40, stockLedger.getStock(4L));
+        assertEquals(40, itemService.getStockLevel(4L));
+        assertEquals(40, storedStock(4L));
+        stockLedger.flush();
+        assertEquals(40, storedStock(4L));
+    }
+
+    @Test
+    void rolledBackOverwriteKeepsUnflushedDeltas() {
+        int before = storedStock(5L);
+        transaction.executeWithoutResult(status -> assertTrue(stockLedger.tryDecrease(5L, 2)));
+
+        transaction.executeWithoutResult(status -> {
+            int stored = storedStock(5L);
+            jdbcTemplate.update("UPDATE items SET stock_quantity = 99 WHERE id = 5");
+            stockLedger.overwrite(5L, stored, 99);
+            status.setRollbackOnly();
+        });
+
+        assertEquals(before - 2, stockLedger.getStock(5L));
+        stockLedger.flush();
+        assertEquals(before - 2, storedStock(5L));
+    }
+
+    @Test
+    void decreaseAllTakesNothingWhenOneItemIsShort() {
+        int first = stockLedger.getStock(6L);
+        int second = stockLedger.getStock(7L);
+
+        List<Long> failed = stockLedger.tryDecreaseAll(Map.of(6L, 1, 7L, second + 1));
+
+        assertEquals(List.of(7L), failed);
+        assertEquals(first, stockLedger.getStock(6L));
+        assertEquals(second, stockLedger.getStock(7L));
+    }
+
+    private int storedStock(Long itemId) {
+        return jdbcTemplate.queryForObject("SELECT stock_quantity FROM items WHERE id = ?", Integer.class, itemId);
+    }
+}
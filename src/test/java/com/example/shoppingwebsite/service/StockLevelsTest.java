@@ -0,0 +1,116 @@
+package com.example.shoppingwebsite.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StockLevelsTest {
+
+    private static final int MASK = 15;
+
+    @Test
+    void deletingFromACollisionChainShiftsTheRestBack() {
+        StockLevels levels = new StockLevels();
+        // Three keys homed on one slot, then one homed on the next slot, which
+        // has to probe past the first cluster.
+        List<Long> sameHome = keysHomedOn(slot(1L), 3);
+        long neighbour = keysHomedOn((slot(1L) + 1) & MASK, 1).get(0);
+        for (long key : sameHome) {
+            levels.put(key, (int) key);
+        }
+        levels.put(neighbour, 7);
+
+        levels.remove(sameHome.get(0));
+
+        assertEquals(StockLevels.UNKNOWN, levels.get(sameHome.get(0)));
+        assertEquals(sameHome.get(1).intValue(), levels.get(sameHome.get(1)));
+        assertEquals(sameHome.get(2).intValue(), levels.get(sameHome.get(2)));
+        assertEquals(7, levels.get(neighbour));
+        assertEquals(3, levels.size());
+
+        // No tombstone is left behind: the chain ends right after the shifted entries.
+        long[] table = (long[]) ReflectionTestUtils.getField(levels, "table");
+        assertEquals(sameHome.get(1), table[slot(1L) * 2]);
+        assertEquals(0L, table[((slot(1L) + 3) & MASK) * 2]);
+    }
+
+    @Test
+    void growsPastThreeQuartersFullAndKeepsEveryEntry() {
+        StockLevels levels = new StockLevels();
+        for (long id = 1; id <= 12; id++) {
+            levels.put(id, (int) id * 10);
+        }
+        assertEquals(32, table(levels).length);
+
+        levels.put(13, 130);
+        assertEquals(64, table(levels).length);
+        for (long id = 1; id <= 13; id++) {
+            assertEquals((int) id * 10, levels.get(id));
+        }
+
+        levels.put(13, 131);
+        assertEquals(13, levels.size());
+        assertEquals(131, levels.get(13));
+    }
+
+    @Test
+    void resetSizesTheTableForTheExpectedEntries() {
+        StockLevels levels = new StockLevels();
+        levels.put(1, 5);
+
+        levels.reset(100);
+
+        assertEquals(0, levels.size());
+        assertEquals(StockLevels.UNKNOWN, levels.get(1));
+        assertEquals(256 * 2, table(levels).length);
+    }
+
+    @Test
+    void matchesAHashMapUnderRandomPutsAndRemoves() {
+        StockLevels levels = new StockLevels();
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            long id = 1 + random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                levels.remove(id);
+                expected.remove(id);
+            } else {
+                int quantity = random.nextInt(500);
+                levels.put(id, quantity);
+                expected.put(id, quantity);
+            }
+        }
+
+        assertEquals(expected.size(), levels.size());
+        for (long id = 1; id <= 2_000; id++) {
+            assertEquals(expected.getOrDefault(id, StockLevels.UNKNOWN), levels.get(id));
+        }
+    }
+
+    private static long[] table(StockLevels levels) {
+        return (long[]) ReflectionTestUtils.getField(levels, "table");
+    }
+
+    private static int slot(long key) {
+        Integer slot = ReflectionTestUtils.invokeMethod(StockLevels.class, "slot", key, MASK);
+        return slot;
+    }
+
+    private static List<Long> keysHomedOn(int slot, int count) {
+        List<Long> keys = new ArrayList<>();
+        for (long key = 1; keys.size() < count; key++) {
+            if (slot(key) == slot) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+}
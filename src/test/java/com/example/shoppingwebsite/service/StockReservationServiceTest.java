@@ -0,0 +1,121 @@
+package com.example.shoppingwebsite.service;
+
+import com.example.shoppingwebsite.exception.InsufficientStockException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class StockReservationServiceTest {
+
+    // Ids no real order has, so the tests cannot collide with other reservations.
+    private static final long ORDER = 900_001L;
+    private static final long OTHER_ORDER = 900_002L;
+    private static final long STORED_ORDER = 900_003L;
+
+    @Autowired
+    private StockReservationService reservationService;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void reservationReducesAvailableUntilReleased() {
+        int stock = itemService.getStockLevel(3L);
+
+        reservationService.reserve(ORDER, Map.of(3L, 4));
+        assertEquals(4, reservationService.getReservedQuantity(3L));
+        assertEquals(stock - 4, reservationService.getAvailableQuantity(3L));
+
+        reservationService.reserve(ORDER, Map.of(3L, 1));
+        assertEquals(1, reservationService.getReservedQuantity(3L));
+
+        reservationService.release(ORDER);
+        assertEquals(0, reservationService.getReservedQuantity(3L));
+        assertEquals(stock, reservationService.getAvailableQuantity(3L));
+    }
+
+    @Test
+    void shortReservationKeepsThePreviousOne() {
+        int stock = itemService.getStockLevel(4L);
+        reservationService.reserve(ORDER, Map.of(4L, 2));
+
+        InsufficientStockException e = assertThrows(InsufficientStockException.class,
+                () -> reservationService.reserve(OTHER_ORDER, Map.of(4L, stock - 1)));
+        assertEquals(1, e.getShortages().size());
+        assertEquals(4L, e.getShortages().get(0).getItemId());
+        assertEquals(stock - 2, e.getShortages().get(0).getAvailable());
+        assertThrows(InsufficientStockException.class,
+                () -> reservationService.reserve(ORDER, Map.of(4L, 2, 5L, 100_000)));
+
+        assertEquals(2, reservationService.getReservedQuantity(4L));
+        assertEquals(0, reservationService.getReservedQuantity(5L));
+        reservationService.release(ORDER);
+    }
+
+    @Test
+    void rollbackRestoresThePreviousReservation() {
+        reservationService.reserve(ORDER, Map.of(5L, 2));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            reservationService.reserve(ORDER, Map.of(5L, 6));
+            assertEquals(6, reservationService.getReservedQuantity(5L));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(2, reservationService.getReservedQuantity(5L));
+        reservationService.release(ORDER);
+    }
+
+    @Test
+    void expiredReservationsAreReleased() {
+        Duration ttl = (Duration) ReflectionTestUtils.getField(reservationService, "ttl");
+        ReflectionTestUtils.setField(reservationService, "ttl", Duration.ZERO);
+        try {
+            reservationService.reserve(ORDER, Map.of(6L, 1));
+        } finally {
+            ReflectionTestUtils.setField(reservationService, "ttl", ttl);
+        }
+        assertEquals(1, reservationService.getReservedQuantity(6L));
+
+        reservationService.releaseExpired();
+
+        assertEquals(0, reservationService.getReservedQuantity(6L));
+    }
+
+    @Test
+    void reservationsAreRebuiltFromTempOrders() {
+        jdbcTemplate.update("INSERT INTO orders (id, order_date, status, total_price, version) " +
+                "VALUES (?, CURRENT_TIMESTAMP, 'TEMP', 0, 0)", STORED_ORDER);
+        jdbcTemplate.update("INSERT INTO order_items (order_id, item_id, quantity, price) VALUES (?, 2, 1, 0)", STORED_ORDER);
+        jdbcTemplate.update("INSERT INTO order_items (order_id, item_id, quantity, price) VALUES (?, 2, 2, 0)", STORED_ORDER);
+        try {
+            reservationService.rebuild();
+            assertEquals(3, reservationService.getReservedQuantity(2L));
+
+            reservationService.rebuild();
+            assertEquals(3, reservationService.getReservedQuantity(2L));
+        } finally {
+            reservationService.release(STORED_ORDER);
+            jdbcTemplate.update("DELETE FROM order_items WHERE order_id = ?", STORED_ORDER);
+            jdbcTemplate.update("DELETE FROM orders WHERE id = ?", STORED_ORDER);
+        }
+        assertEquals(0, reservationService.getReservedQuantity(2L));
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.shoppingwebsite.service;
+
+import com.example.shoppingwebsite.exception.InsufficientStockException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Own database and second-level cache regions: the JCache provider is shared
+// by every test context in the JVM.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:stockledgertest",
+        "spring.jpa.properties.hibernate.cache.region_prefix=stockledgertest",
+        "spring.jpa.properties.hibernate.javax.cache.missing_cache_strategy=create",
+        "stock.ledger.enabled=true",
+        "stock.ledger.flush-interval-ms=3600000"
+})
+class StockServiceLedgerTest {
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Test
+    void decreaseStockForOrderIsAllOrNothing() {
+        int first = stockLedger.getStock(8L);
+        int second = stockLedger.getStock(9L);
+
+        InsufficientStockException e = assertThrows(InsufficientStockException.class,
+                () -> stockService.decreaseStock(Map.of(8L, 1, 9L, second + 1)));
+        assertEquals(1, e.getShortages().size());
+        assertEquals(first, stockLedger.getStock(8L));
+        assertEquals(second, stockLedger.getStock(9L));
+
+        stockService.decreaseStock(Map.of(8L, 1, 9L, 2));
+        assertEquals(first - 1, stockLedger.getStock(8L));
+        assertEquals(second - 2, stockLedger.getStock(9L));
+    }
+}
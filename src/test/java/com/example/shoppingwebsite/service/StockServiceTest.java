@@ -0,0 +1,36 @@
+package com.example.shoppingwebsite.service;
+
+import com.example.shoppingwebsite.exception.InsufficientStockException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class StockServiceTest {
+
+    @Autowired
+    private StockService stockService;
+
+    @Test
+    void decreaseStockForOrderIsAllOrNothing() {
+        int first = stockService.getStockQuantity(7L);
+        int second = stockService.getStockQuantity(8L);
+
+        InsufficientStockException e = assertThrows(InsufficientStockException.class,
+                () -> stockService.decreaseStock(Map.of(7L, 1, 8L, second + 1)));
+        assertEquals(1, e.getShortages().size());
+        assertEquals(8L, e.getShortages().get(0).getItemId());
+        assertEquals(second, e.getShortages().get(0).getAvailable());
+        assertEquals(first, stockService.getStockQuantity(7L));
+        assertEquals(second, stockService.getStockQuantity(8L));
+
+        stockService.decreaseStock(Map.of(7L, 2, 8L, 1));
+        assertEquals(first - 2, stockService.getStockQuantity(7L));
+        assertEquals(second - 1, stockService.getStockQuantity(8L));
+    }
+}